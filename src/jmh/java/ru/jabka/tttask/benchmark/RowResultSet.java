@@ -0,0 +1,24 @@
+package ru.jabka.tttask.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Map;
+
+/**
+ * ResultSet с одной строкой в памяти: в замер маппинга не попадает работа драйвера.
+ * Поддерживает только чтение по имени колонки.
+ */
+final class RowResultSet {
+
+    private RowResultSet() {
+    }
+
+    static ResultSet of(final Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getLong", "getInt", "getString", "getObject" -> row.get((String) args[0]);
+                    case "wasNull" -> false;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,86 @@
+package ru.jabka.tttask.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.history.TaskHistory;
+import ru.jabka.tttask.util.HistoryWrapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов и событий истории тем же набором модулей Jackson, что настраивает Spring Boot.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"50"})
+    private int tasksInResponse;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private Task task;
+    private TaskHistory history;
+    private Set<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        task = task(42L);
+        history = HistoryWrapper.prepareMessage(task, 3L);
+        tasks = new HashSet<>();
+        for (long id = 1; id <= tasksInResponse; id++) {
+            tasks.add(task(id));
+        }
+    }
+
+    @Benchmark
+    public byte[] task() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public byte[] taskHistory() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(history);
+    }
+
+    @Benchmark
+    public byte[] taskSet() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+
+    private static Task task(final long id) {
+        return Task.builder()
+                .id(id)
+                .title("title " + id)
+                .description("description of task " + id)
+                .status(Status.IN_PROGRESS)
+                .deadLine(LocalDate.of(2030, 1, 1))
+                .assignee(7L)
+                .author(3L)
+                .createdAt(LocalDateTime.of(2026, 1, 1, 10, 0))
+                .updatedAt(LocalDateTime.of(2026, 1, 2, 10, 0))
+                .version(1)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.jabka.tttask.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.StatusTransition;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.repository.mapper.TaskMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг строки tt.task и поиск статусов, которые выполняются для каждой прочитанной или изменённой задачи.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TaskMapperBenchmark {
+
+    private final TaskMapper taskMapper = new TaskMapper();
+    private ResultSet row;
+    private long statusId;
+
+    @Setup
+    public void setUp() {
+        row = RowResultSet.of(Map.of(
+                "id", 42L,
+                "title", "title",
+                "description", "description",
+                "status", 2L,
+                "dead_line", LocalDate.of(2030, 1, 1),
+                "assignee", 7L,
+                "author", 3L,
+                "created_at", Timestamp.valueOf(LocalDateTime.of(2026, 1, 1, 10, 0)),
+                "updated_at", Timestamp.valueOf(LocalDateTime.of(2026, 1, 2, 10, 0)),
+                "version", 5));
+        statusId = 3L;
+    }
+
+    @Benchmark
+    public Task mapRow() throws SQLException {
+        return taskMapper.mapRow(row, 0);
+    }
+
+    @Benchmark
+    public Status statusById() {
+        return Status.byId(statusId);
+    }
+
+    @Benchmark
+    public StatusTransition findTransition() {
+        return StatusTransition.findTransition(Status.IN_PROGRESS, Status.DELETED);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.jabka.tttask.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.UpdateTask;
+import ru.jabka.tttask.model.history.TaskHistory;
+import ru.jabka.tttask.util.HistoryWrapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Работа {@link TaskService} над задачей в памяти при редактировании: слияние изменений и событие истории.
+ * Зависимости сервиса не нужны, поэтому он создаётся без них.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TaskServiceBenchmark {
+
+    private final TaskService taskService = new TaskService(null, null, null, null, null, null, null, null);
+
+    private final Task task = Task.builder()
+            .id(42L)
+            .title("title")
+            .description("description")
+            .status(Status.TO_DO)
+            .deadLine(LocalDate.of(2030, 1, 1))
+            .assignee(7L)
+            .author(3L)
+            .createdAt(LocalDateTime.of(2026, 1, 1, 10, 0))
+            .updatedAt(LocalDateTime.of(2026, 1, 2, 10, 0))
+            .version(5)
+            .build();
+
+    private final UpdateTask titleOnly = UpdateTask.builder()
+            .id(42L)
+            .title("changed")
+            .editor(3L)
+            .build();
+
+    private final UpdateTask statusChange = UpdateTask.builder()
+            .id(42L)
+            .status(Status.IN_PROGRESS)
+            .assignee(8L)
+            .editor(3L)
+            .build();
+
+    @Benchmark
+    public Task applyUpdates_titleOnly() {
+        return taskService.applyUpdates(task, titleOnly);
+    }
+
+    @Benchmark
+    public Task applyUpdates_statusChange() {
+        return taskService.applyUpdates(task, statusChange);
+    }
+
+    @Benchmark
+    public TaskHistory prepareMessage() {
+        return HistoryWrapper.prepareMessage(task, 3L);
+    }
+}
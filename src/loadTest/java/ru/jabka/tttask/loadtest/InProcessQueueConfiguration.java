@@ -0,0 +1,44 @@
+package ru.jabka.tttask.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import ru.jabka.tttask.client.QueueClient;
+import ru.jabka.tttask.configuration.RabbitConfigurationProperties;
+import ru.jabka.tttask.model.history.TaskHistory;
+
+import java.util.List;
+
+/**
+ * Заменяет отправку в RabbitMQ счётчиками: outbox и сброс кэша работают как обычно,
+ * но сообщения никуда не уходят и брокер для нагрузочного теста не нужен.
+ */
+@Configuration
+@Profile("loadtest")
+public class InProcessQueueConfiguration {
+
+    @Bean
+    @Primary
+    public QueueClient inProcessQueueClient(final RabbitTemplate rabbitTemplate,
+                                            final RabbitConfigurationProperties properties,
+                                            final MeterRegistry meterRegistry) {
+        Counter histories = meterRegistry.counter("tt.loadtest.queue.histories");
+        Counter invalidations = meterRegistry.counter("tt.loadtest.queue.cache.invalidations");
+        return new QueueClient(rabbitTemplate, properties, meterRegistry) {
+
+            @Override
+            public void sendTaskHistories(final List<TaskHistory> taskHistories) {
+                histories.increment(taskHistories.size());
+            }
+
+            @Override
+            public void sendTaskCacheInvalidation(final List<Long> ids) {
+                invalidations.increment(ids.size());
+            }
+        };
+    }
+}
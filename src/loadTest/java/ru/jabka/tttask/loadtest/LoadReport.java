@@ -0,0 +1,107 @@
+package ru.jabka.tttask.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки по сценариям. Задержка считается от запланированного момента отправки,
+ * а не от фактического, поэтому очередь перед приложением тоже попадает в перцентили.
+ */
+final class LoadReport {
+
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<Scenario, Histogram> latencies = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+
+    LoadReport() {
+        for (Scenario scenario : Scenario.values()) {
+            latencies.put(scenario, new ConcurrentHistogram(MAX_LATENCY, 3));
+            errors.put(scenario, new LongAdder());
+        }
+    }
+
+    void record(final Scenario scenario, final long latencyNanos, final boolean success) {
+        latencies.get(scenario).recordValue(Math.min(latencyNanos, MAX_LATENCY));
+        if (!success) {
+            errors.get(scenario).increment();
+        }
+    }
+
+    List<Row> rows(final LoadTestSettings settings) {
+        double seconds = settings.duration().toNanos() / 1e9;
+        return settings.rates().entrySet().stream()
+                .map(entry -> {
+                    Histogram histogram = latencies.get(entry.getKey());
+                    long count = histogram.getTotalCount();
+                    long failed = errors.get(entry.getKey()).sum();
+                    return new Row(entry.getKey().key(), entry.getValue(), count, count / seconds,
+                            failed, count == 0 ? 0 : (double) failed / count,
+                            millis(histogram.getValueAtPercentile(50)),
+                            millis(histogram.getValueAtPercentile(90)),
+                            millis(histogram.getValueAtPercentile(99)),
+                            millis(histogram.getValueAtPercentile(99.9)),
+                            millis(histogram.getMaxValue()));
+                })
+                .toList();
+    }
+
+    void print(final LoadTestSettings settings, final PrintStream out) {
+        out.printf("%n%-10s %8s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "scenario", "rate/s", "req/s", "errors", "err %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Row row : rows(settings)) {
+            out.printf("%-10s %8d %9.1f %9d %8.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    row.scenario(), row.targetRate(), row.throughput(), row.errors(), row.errorRate() * 100,
+                    row.p50(), row.p90(), row.p99(), row.p999(), row.max());
+        }
+    }
+
+    /**
+     * Пишет отчёт вместе с настройками прогона, чтобы отчёты разных прогонов можно было сравнивать.
+     */
+    Path write(final LoadTestSettings settings) throws IOException {
+        Path dir = Path.of(settings.reportDir());
+        Files.createDirectories(dir);
+        Path file = dir.resolve("loadtest-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build().enable(SerializationFeature.INDENT_OUTPUT);
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("settings", settings);
+        content.put("results", rows(settings));
+        objectMapper.writeValue(file.toFile(), content);
+        return file;
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / (double) Duration.ofMillis(1).toNanos();
+    }
+
+    record Row(String scenario,
+               int targetRate,
+               long requests,
+               double throughput,
+               long errors,
+               double errorRate,
+               double p50,
+               double p90,
+               double p99,
+               double p999,
+               double max) {
+    }
+}
@@ -0,0 +1,153 @@
+package ru.jabka.tttask.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.jabka.tttask.TtTaskApplication;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест tt-task без внешних зависимостей: встроенный PostgreSQL, заглушка user-service
+ * и профиль {@code loadtest}, в котором история и сброс кэша не уходят в RabbitMQ.
+ * Каждый сценарий подаёт запросы с постоянной частотой независимо от времени ответа (открытая модель).
+ * Запуск: {@code gradle loadTest -Ploadtest.duration=60s -Ploadtest.rates=create:20,get-by-id:200}.
+ */
+public final class LoadTest {
+
+    private static final int SEED_BATCH_SIZE = 500;
+
+    private LoadTest() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+             UserServiceStub userService = new UserServiceStub(settings.userLatency());
+             ConfigurableApplicationContext app = start(settings, postgres, userService);
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .build()) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            ObjectMapper objectMapper = app.getBean(ObjectMapper.class);
+            Scenario.Target target = new Scenario.Target("http://localhost:" + port, settings.users(),
+                    seed(httpClient, objectMapper, "http://localhost:" + port, settings));
+            userService.setErrorRate(settings.userErrorRate());
+            LoadReport report = run(httpClient, target, settings);
+            report.print(settings, System.out);
+            Path file = report.write(settings);
+            System.out.println("Report written to " + file.toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(final LoadTestSettings settings,
+                                                        final EmbeddedPostgres postgres,
+                                                        final UserServiceStub userService) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        properties.put("services.user-service-url", userService.url());
+        properties.putAll(settings.appProperties());
+        return new SpringApplicationBuilder(TtTaskApplication.class)
+                .profiles("loadtest")
+                .run(properties.entrySet().stream()
+                        .map(x -> "--" + x.getKey() + "=" + x.getValue())
+                        .toArray(String[]::new));
+    }
+
+    private static List<Long> seed(final HttpClient httpClient,
+                                   final ObjectMapper objectMapper,
+                                   final String baseUrl,
+                                   final LoadTestSettings settings) throws Exception {
+        SplittableRandom random = new SplittableRandom(settings.randomSeed());
+        List<Long> ids = new ArrayList<>(settings.seedTasks());
+        while (ids.size() < settings.seedTasks()) {
+            int size = Math.min(SEED_BATCH_SIZE, settings.seedTasks() - ids.size());
+            List<String> tasks = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                tasks.add(Scenario.taskRequest(random, settings.users()));
+            }
+            HttpRequest request = Scenario.json(new Scenario.Target(baseUrl, settings.users(), ids).uri("/api/v1/task/batch"),
+                    "POST", "[" + String.join(",", tasks) + "]");
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Не удалось создать задачи перед прогоном: " + response.body());
+            }
+            for (JsonNode item : objectMapper.readTree(response.body())) {
+                if (item.hasNonNull("result")) {
+                    ids.add(item.get("result").get("id").asLong());
+                }
+            }
+        }
+        return List.copyOf(ids);
+    }
+
+    private static LoadReport run(final HttpClient httpClient,
+                                  final Scenario.Target target,
+                                  final LoadTestSettings settings) throws InterruptedException {
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        List<Thread> schedulers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<Scenario, Integer> rate : settings.rates().entrySet()) {
+                if (rate.getValue() <= 0) {
+                    continue;
+                }
+                Scenario scenario = rate.getKey();
+                SplittableRandom random = new SplittableRandom(settings.randomSeed() + scenario.ordinal());
+                long period = 1_000_000_000L / rate.getValue();
+                schedulers.add(Thread.ofPlatform().name("loadtest-" + scenario.key()).start(() -> {
+                    for (long intended = start; intended < end; intended += period) {
+                        long delay = intended - System.nanoTime();
+                        if (delay > 0) {
+                            LockSupport.parkNanos(delay);
+                        }
+                        HttpRequest request = scenario.request(target, random);
+                        boolean measured = intended >= measureFrom;
+                        long scheduledAt = intended;
+                        executor.execute(() -> send(httpClient, request, scenario, scheduledAt, measured, report));
+                    }
+                }));
+            }
+            for (Thread scheduler : schedulers) {
+                scheduler.join();
+            }
+        }
+        return report;
+    }
+
+    private static void send(final HttpClient httpClient,
+                             final HttpRequest request,
+                             final Scenario scenario,
+                             final long scheduledAt,
+                             final boolean measured,
+                             final LoadReport report) {
+        boolean success;
+        try {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            success = status >= 200 && status < 300;
+        } catch (Exception e) {
+            success = false;
+        }
+        if (measured) {
+            report.record(scenario, System.nanoTime() - scheduledAt, success);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.jabka.tttask.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Параметры прогона из системных свойств {@code loadtest.*}; {@code gradle loadTest} передаёт их
+ * из одноимённых свойств проекта. Свойства {@code loadtest.app.*} без префикса уходят в приложение.
+ */
+record LoadTestSettings(
+        Duration warmup,
+        Duration duration,
+        Map<Scenario, Integer> rates,
+        int seedTasks,
+        int users,
+        Duration userLatency,
+        double userErrorRate,
+        long randomSeed,
+        String reportDir,
+        Map<String, String> appProperties
+) {
+
+    private static final String PREFIX = "loadtest.";
+    private static final String APP_PREFIX = PREFIX + "app.";
+
+    static LoadTestSettings fromSystemProperties() {
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(x -> x.startsWith(APP_PREFIX))
+                .sorted()
+                .forEach(x -> appProperties.put(x.substring(APP_PREFIX.length()), System.getProperty(x)));
+        return new LoadTestSettings(
+                duration("warmup", "10s"),
+                duration("duration", "60s"),
+                rates(property("rates", "create:20,update:20,get-by-id:200,filter:20,active:100")),
+                Integer.parseInt(property("seed-tasks", "2000")),
+                Integer.parseInt(property("users", "200")),
+                duration("user-latency", "20ms"),
+                Double.parseDouble(property("user-error-rate", "0")),
+                Long.parseLong(property("random-seed", "42")),
+                property("report-dir", "build/reports/loadtest"),
+                appProperties);
+    }
+
+    private static Map<Scenario, Integer> rates(final String value) {
+        Map<Scenario, Integer> rates = new EnumMap<>(Scenario.class);
+        for (String pair : value.split(",")) {
+            String[] parts = pair.trim().split(":");
+            rates.put(Scenario.byName(parts[0]), Integer.parseInt(parts[1]));
+        }
+        return rates;
+    }
+
+    private static Duration duration(final String name, final String defaultValue) {
+        return DurationStyle.detectAndParse(property(name, defaultValue));
+    }
+
+    private static String property(final String name, final String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+}
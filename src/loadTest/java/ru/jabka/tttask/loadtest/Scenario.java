@@ -0,0 +1,106 @@
+package ru.jabka.tttask.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Виды запросов нагрузочного теста. Параметры берутся из генератора с фиксированным зерном,
+ * поэтому при одинаковых настройках прогоны выполняют одну и ту же последовательность запросов.
+ */
+enum Scenario {
+
+    CREATE("create") {
+        @Override
+        HttpRequest request(final Target target, final SplittableRandom random) {
+            return json(target.uri("/api/v1/task"), "POST", taskRequest(random, target.users()));
+        }
+    },
+    UPDATE("update") {
+        @Override
+        HttpRequest request(final Target target, final SplittableRandom random) {
+            long id = target.taskId(random);
+            return json(target.uri("/api/v1/task"), "PATCH", String.format(
+                    "{\"id\":%d,\"title\":\"title %d\",\"editor\":%d}", id, random.nextInt(1_000_000), user(random, target.users())));
+        }
+    },
+    GET_BY_ID("get-by-id") {
+        @Override
+        HttpRequest request(final Target target, final SplittableRandom random) {
+            return get(target.uri("/api/v1/task/" + target.taskId(random)));
+        }
+    },
+    FILTER("filter") {
+        @Override
+        HttpRequest request(final Target target, final SplittableRandom random) {
+            return get(target.uri("/api/v1/task?limit=50&assignee=" + user(random, target.users())));
+        }
+    },
+    ACTIVE("active") {
+        @Override
+        HttpRequest request(final Target target, final SplittableRandom random) {
+            return get(target.uri("/api/v1/task/active?assigneeId=" + user(random, target.users())));
+        }
+    };
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final String key;
+
+    Scenario(final String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    abstract HttpRequest request(Target target, SplittableRandom random);
+
+    static Scenario byName(final String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный сценарий " + key);
+    }
+
+    static String taskRequest(final SplittableRandom random, final int users) {
+        return String.format("{\"title\":\"title\",\"description\":\"load test\",\"deadLine\":\"%s\",\"author\":%d,\"assignee\":%d}",
+                LocalDate.now().plusDays(30), user(random, users), user(random, users));
+    }
+
+    static HttpRequest json(final URI uri, final String method, final String body) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest get(final URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(TIMEOUT).GET().build();
+    }
+
+    private static long user(final SplittableRandom random, final int users) {
+        return 1 + random.nextInt(users);
+    }
+
+    /**
+     * Адрес приложения, число пользователей заглушки и id задач, созданных перед прогоном.
+     */
+    record Target(String baseUrl, int users, List<Long> taskIds) {
+
+        URI uri(final String path) {
+            return URI.create(baseUrl + path);
+        }
+
+        long taskId(final SplittableRandom random) {
+            return taskIds.get(random.nextInt(taskIds.size()));
+        }
+    }
+}
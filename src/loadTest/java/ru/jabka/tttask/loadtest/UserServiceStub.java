@@ -0,0 +1,87 @@
+package ru.jabka.tttask.loadtest;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Заглушка {@code GET /api/v1/user?ids=...} на отдельном Tomcat: отвечает всеми запрошенными
+ * пользователями с ролью MANAGER после задержки, а с заданной вероятностью возвращает 503.
+ */
+final class UserServiceStub implements AutoCloseable {
+
+    private final Tomcat tomcat = new Tomcat();
+    private final Connector connector = new Connector();
+    private volatile double errorRate;
+
+    UserServiceStub(final Duration latency) throws IOException, LifecycleException {
+        tomcat.setBaseDir(Files.createTempDirectory("user-service-stub").toString());
+        connector.setPort(0);
+        connector.getProtocolHandler().setExecutor(new VirtualThreadExecutor("user-service-stub-"));
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "users", new HttpServlet() {
+            @Override
+            protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+                sleep(latency);
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    return;
+                }
+                String[] ids = request.getParameterValues("ids");
+                StringBuilder body = new StringBuilder("[");
+                for (int i = 0; ids != null && i < ids.length; i++) {
+                    if (i > 0) {
+                        body.append(',');
+                    }
+                    long id = Long.parseLong(ids[i]);
+                    body.append("{\"id\":").append(id)
+                            .append(",\"username\":\"user").append(id)
+                            .append("\",\"role\":\"MANAGER\"}");
+                }
+                response.setContentType("application/json");
+                response.getWriter().write(body.append(']').toString());
+            }
+        });
+        context.addServletMappingDecoded("/api/v1/user", "users");
+        tomcat.start();
+    }
+
+    /**
+     * Включает ошибки после подготовки данных, чтобы они не мешали созданию задач перед прогоном.
+     */
+    void setErrorRate(final double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    String url() {
+        return "http://localhost:" + connector.getLocalPort();
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    private static void sleep(final Duration latency) {
+        if (latency.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
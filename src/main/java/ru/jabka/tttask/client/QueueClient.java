@@ -1,19 +1,167 @@
 package ru.jabka.tttask.client;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 import ru.jabka.tttask.configuration.RabbitConfigurationProperties;
+import ru.jabka.tttask.model.TaskCacheInvalidation;
 import ru.jabka.tttask.model.history.TaskHistory;
+import ru.jabka.tttask.model.history.TaskHistoryEnvelope;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Публикует события истории конвейером: все сообщения пачки отправляются подряд в один канал
+ * (это сохраняет их порядок), затем собираются асинхронные подтверждения брокера.
+ * Метод возвращает управление только когда брокер подтвердил все сообщения, иначе бросает
+ * исключение, и вызывающий (ретранслятор outbox) повторит отправку.
+ */
+@Log4j2
 @Component
-@RequiredArgsConstructor
 public class QueueClient {
 
     private final RabbitTemplate rabbitTemplate;
     private final RabbitConfigurationProperties properties;
+    private final Semaphore inFlight;
+    private final Counter publishedEvents;
+    private final Counter publishedMessages;
+    private final Timer confirmLatency;
+    private final MeterRegistry meterRegistry;
+
+    public QueueClient(final RabbitTemplate rabbitTemplate,
+                       final RabbitConfigurationProperties properties,
+                       final MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.inFlight = new Semaphore(properties.getPublisher().getMaxInFlight());
+        this.publishedEvents = meterRegistry.counter("tt.history.published.events");
+        this.publishedMessages = meterRegistry.counter("tt.history.published.messages");
+        this.confirmLatency = Timer.builder("tt.history.confirm.latency")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("tt.history.in.flight", inFlight,
+                x -> properties.getPublisher().getMaxInFlight() - x.availablePermits());
+    }
 
     public void sendTaskHistory(final TaskHistory taskHistory) {
-        rabbitTemplate.convertAndSend(properties.getExchange(), properties.getQueueTasks(), taskHistory);
+        sendTaskHistories(List.of(taskHistory));
+    }
+
+    public void sendTaskHistories(final List<TaskHistory> histories) {
+        List<CorrelationData> pending = rabbitTemplate.invoke(operations -> {
+            List<CorrelationData> sent = new ArrayList<>();
+            for (Object message : pack(histories)) {
+                sent.add(publish(operations, message));
+            }
+            return sent;
+        });
+        awaitConfirms(pending);
+        publishedEvents.increment(histories.size());
+    }
+
+    /**
+     * Рассылает узлам сброс задач из кэша, без подтверждений брокера: потерянное сообщение
+     * лишь оставляет запись устаревшей до истечения её срока жизни.
+     */
+    public void sendTaskCacheInvalidation(final List<Long> ids) {
+        try {
+            rabbitTemplate.convertAndSend(properties.getCacheInvalidationExchange(), "", new TaskCacheInvalidation(ids));
+        } catch (AmqpException e) {
+            meterRegistry.counter("tt.task.cache.invalidation.failures").increment();
+            log.warn("Не удалось разослать сброс кэша задач {}", ids, e);
+        }
+    }
+
+    private List<Object> pack(final List<TaskHistory> histories) {
+        int envelopeSize = properties.getPublisher().getEnvelopeSize();
+        if (envelopeSize <= 1) {
+            return new ArrayList<>(histories);
+        }
+        List<Object> messages = new ArrayList<>();
+        for (int from = 0; from < histories.size(); from += envelopeSize) {
+            messages.add(new TaskHistoryEnvelope(List.copyOf(histories.subList(from, Math.min(from + envelopeSize, histories.size())))));
+        }
+        return messages;
+    }
+
+    private CorrelationData publish(final RabbitOperations operations, final Object message) {
+        acquire();
+        CorrelationData correlationData = new CorrelationData();
+        long start = System.nanoTime();
+        correlationData.getFuture().whenComplete((confirm, e) -> {
+            inFlight.release();
+            if (confirm != null) {
+                confirmLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+        try {
+            operations.convertAndSend(properties.getExchange(), properties.getQueueTasks(), message, correlationData);
+        } catch (AmqpException e) {
+            correlationData.getFuture().cancel(false);
+            failed("error");
+            throw e;
+        }
+        publishedMessages.increment();
+        return correlationData;
+    }
+
+    private void acquire() {
+        try {
+            if (!inFlight.tryAcquire(properties.getPublisher().getBackpressureTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                failed("backpressure");
+                throw new IllegalStateException("Превышен лимит неподтверждённых сообщений истории");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Отправка событий истории прервана", e);
+        }
+    }
+
+    private void awaitConfirms(final List<CorrelationData> pending) {
+        long deadline = System.nanoTime() + properties.getPublisher().getConfirmTimeout().toNanos();
+        RuntimeException error = null;
+        for (CorrelationData correlationData : pending) {
+            try {
+                CorrelationData.Confirm result = correlationData.getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!result.isAck() && error == null) {
+                    failed("nack");
+                    error = new IllegalStateException("Брокер отклонил сообщение истории: " + result.getReason());
+                }
+            } catch (TimeoutException e) {
+                correlationData.getFuture().cancel(false);
+                if (error == null) {
+                    failed("timeout");
+                    error = new IllegalStateException("Не получено подтверждение брокера для сообщения истории");
+                }
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    failed("error");
+                    error = new IllegalStateException("Ошибка отправки сообщения истории", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ожидание подтверждений брокера прервано", e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void failed(final String reason) {
+        meterRegistry.counter("tt.history.publish.failures", "reason", reason).increment();
     }
-}
\ No newline at end of file
+}
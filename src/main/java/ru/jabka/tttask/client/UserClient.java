@@ -1,22 +1,90 @@
 package ru.jabka.tttask.client;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import ru.jabka.tttask.configuration.UserCacheProperties;
 import ru.jabka.tttask.model.UserResponse;
 
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
+/**
+ * Клиент user-service с кэшем пользователей по id. Отсутствующие пользователи тоже кэшируются,
+ * но на меньший срок. Одновременные запросы одного и того же id ждут одну общую загрузку,
+ * а промахи разных вызовов объединяет {@link UserRequestCoalescer}.
+ */
 @Component
-@RequiredArgsConstructor
 public class UserClient {
 
-    private final RestTemplate restTemplate;
+    private final UserRequestCoalescer requestCoalescer;
+    private final AsyncLoadingCache<Long, Optional<UserResponse>> cache;
+
+    public UserClient(final UserRequestCoalescer requestCoalescer,
+                      final UserCacheProperties properties,
+                      final MeterRegistry meterRegistry) {
+        this.requestCoalescer = requestCoalescer;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new UserExpiry(properties))
+                .recordStats()
+                .buildAsync(new UserLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
 
     public Set<UserResponse> getAllByIds(final Set<Long> ids) {
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString("/api/v1/user");
-        ids.forEach(id -> builder.queryParam("ids", id));
-        return Set.of(restTemplate.getForObject(builder.toUriString(), UserResponse[].class));
+        try {
+            return cache.getAll(ids).join().values().stream()
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toSet());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record UserExpiry(UserCacheProperties properties) implements Expiry<Long, Optional<UserResponse>> {
+
+        @Override
+        public long expireAfterCreate(final Long id, final Optional<UserResponse> user, final long currentTime) {
+            return (user.isPresent() ? properties.getTtl() : properties.getNotFoundTtl()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(final Long id, final Optional<UserResponse> user, final long currentTime,
+                                      final long currentDuration) {
+            return expireAfterCreate(id, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(final Long id, final Optional<UserResponse> user, final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private class UserLoader implements AsyncCacheLoader<Long, Optional<UserResponse>> {
+
+        @Override
+        public CompletableFuture<Optional<UserResponse>> asyncLoad(final Long id, final Executor executor) {
+            return asyncLoadAll(Set.of(id), executor).thenApply(users -> users.get(id));
+        }
+
+        @Override
+        public CompletableFuture<Map<Long, Optional<UserResponse>>> asyncLoadAll(final Set<? extends Long> ids,
+                                                                                  final Executor executor) {
+            return requestCoalescer.load(ids);
+        }
     }
-}
\ No newline at end of file
+}
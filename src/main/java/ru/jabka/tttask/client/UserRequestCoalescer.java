@@ -0,0 +1,203 @@
+package ru.jabka.tttask.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.jabka.tttask.configuration.ThreadingConfiguration;
+import ru.jabka.tttask.configuration.UserBatchProperties;
+import ru.jabka.tttask.model.UserResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Объединяет запросы пользователей от параллельных вызовов: id копятся в течение окна
+ * {@code services.user-batch.window} или до {@code max-batch-size}, затем уходят одним запросом
+ * {@code /api/v1/user?ids=...}, а ответ раздаётся ожидающим вызовам.
+ */
+@Component
+public class UserRequestCoalescer implements DisposableBean {
+
+    private final RestTemplate restTemplate;
+    private final UserBatchProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final Executor fetchExecutor;
+    private final DistributionSummary batchSize;
+    private final Timer waitTime;
+    private final MeterRegistry meterRegistry;
+
+    private final Lock lock = new ReentrantLock();
+    private List<PendingLookup> pending = new ArrayList<>();
+    private int pendingIds;
+    private ScheduledFuture<?> flushTask;
+
+    public UserRequestCoalescer(final RestTemplate restTemplate,
+                                final UserBatchProperties properties,
+                                @Qualifier(ThreadingConfiguration.USER_BATCH_EXECUTOR) final Executor fetchExecutor,
+                                final MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.properties = properties;
+        this.fetchExecutor = fetchExecutor;
+        this.meterRegistry = meterRegistry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(timerThreads());
+        this.batchSize = DistributionSummary.builder("tt.user.batch.size")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("tt.user.batch.wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<Map<Long, Optional<UserResponse>>> load(final Set<? extends Long> ids) {
+        if (!properties.isEnabled()) {
+            return CompletableFuture.supplyAsync(() -> fetch(ids), Runnable::run);
+        }
+        PendingLookup lookup = new PendingLookup(Set.copyOf(ids), new CompletableFuture<>(), System.nanoTime());
+        List<PendingLookup> ready = null;
+        lock.lock();
+        try {
+            pending.add(lookup);
+            pendingIds += ids.size();
+            if (pendingIds >= properties.getMaxBatchSize()) {
+                ready = drain();
+            } else if (flushTask == null) {
+                flushTask = scheduler.schedule(this::flush, properties.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ready != null) {
+            submit(ready);
+        }
+        return lookup.result();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush() {
+        List<PendingLookup> ready;
+        lock.lock();
+        try {
+            ready = drain();
+        } finally {
+            lock.unlock();
+        }
+        if (!ready.isEmpty()) {
+            submit(ready);
+        }
+    }
+
+    private List<PendingLookup> drain() {
+        List<PendingLookup> ready = pending;
+        pending = new ArrayList<>();
+        pendingIds = 0;
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return ready;
+    }
+
+    private void submit(final List<PendingLookup> lookups) {
+        try {
+            fetchExecutor.execute(() -> send(lookups));
+        } catch (RuntimeException e) {
+            lookups.forEach(lookup -> lookup.result().completeExceptionally(e));
+        }
+    }
+
+    private void send(final List<PendingLookup> lookups) {
+        long now = System.nanoTime();
+        Set<Long> ids = new TreeSet<>();
+        for (PendingLookup lookup : lookups) {
+            waitTime.record(now - lookup.createdAt(), TimeUnit.NANOSECONDS);
+            ids.addAll(lookup.ids());
+        }
+        try {
+            Map<Long, Optional<UserResponse>> users = new HashMap<>();
+            List<Long> chunk = new ArrayList<>();
+            for (Long id : ids) {
+                chunk.add(id);
+                if (chunk.size() == properties.getMaxBatchSize()) {
+                    users.putAll(fetch(chunk));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                users.putAll(fetch(chunk));
+            }
+            for (PendingLookup lookup : lookups) {
+                Map<Long, Optional<UserResponse>> result = new HashMap<>();
+                lookup.ids().forEach(id -> result.put(id, users.get(id)));
+                lookup.result().complete(result);
+            }
+        } catch (RuntimeException e) {
+            lookups.forEach(lookup -> lookup.result().completeExceptionally(e));
+        }
+    }
+
+    private Map<Long, Optional<UserResponse>> fetch(final Iterable<? extends Long> ids) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString("/api/v1/user");
+        Map<Long, Optional<UserResponse>> result = new HashMap<>();
+        ids.forEach(id -> {
+            builder.queryParam("ids", id);
+            result.put(id, Optional.empty());
+        });
+        batchSize.record(result.size());
+        UserResponse[] users = request(builder.toUriString());
+        if (users != null) {
+            for (UserResponse user : users) {
+                result.put(user.id(), Optional.of(user));
+            }
+        }
+        return result;
+    }
+
+    private UserResponse[] request(final String uri) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            UserResponse[] users = restTemplate.getForObject(uri, UserResponse[].class);
+            outcome = "success";
+            return users;
+        } finally {
+            sample.stop(Timer.builder("tt.user.request")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private static CustomizableThreadFactory timerThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-batch-timer-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private record PendingLookup(Set<Long> ids,
+                                 CompletableFuture<Map<Long, Optional<UserResponse>>> result,
+                                 long createdAt) {
+    }
+}
@@ -0,0 +1,23 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.assignee-load")
+public class AssigneeLoadProperties {
+
+    private Duration reconcileDelay = Duration.ofHours(1);
+    /**
+     * Как часто сворачивать приращения счётчиков в tt.assignee_load.
+     */
+    private Duration compactDelay = Duration.ofSeconds(1);
+    /**
+     * Приращений за одну свёртку и активных задач в одном диапазоне сверки.
+     */
+    private int batchSize = 10_000;
+}
@@ -0,0 +1,16 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.export")
+public class ExportConfigurationProperties {
+
+    /**
+     * Сколько строк серверный курсор отдаёт за один запрос к базе.
+     */
+    private int fetchSize = 500;
+}
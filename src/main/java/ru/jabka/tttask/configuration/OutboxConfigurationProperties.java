@@ -0,0 +1,16 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.outbox")
+public class OutboxConfigurationProperties {
+
+    private int batchSize = 100;
+    private Duration relayDelay = Duration.ofMillis(200);
+}
@@ -0,0 +1,35 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.query-profiler")
+public class QueryProfilerProperties {
+
+    private boolean enabled = false;
+    /**
+     * Запросы не быстрее порога пишутся в лог и становятся кандидатами на снятие плана.
+     */
+    private Duration slowThreshold = Duration.ofMillis(200);
+    /**
+     * Доля медленных выполнений, для которых снимается план, от 0 до 1.
+     */
+    private double planSampleRate = 0.1;
+    /**
+     * Не чаще одного плана на запрос за этот интервал.
+     */
+    private Duration planInterval = Duration.ofMinutes(1);
+    /**
+     * Ограничение времени EXPLAIN ANALYZE.
+     */
+    private Duration planTimeout = Duration.ofSeconds(5);
+    /**
+     * Сколько разных текстов запросов учитывать отдельно, остальные попадают в общую строку.
+     */
+    private int maxStatements = 500;
+}
@@ -1,9 +1,11 @@
 package ru.jabka.tttask.configuration;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -29,13 +31,33 @@ public class RabbitConfiguration {
     }
 
     @Bean
-    public Binding binding(final Queue queue, final DirectExchange exchange) {
+    public Binding binding(final Queue tasksHistoryQueue, final DirectExchange historyExchange) {
         return BindingBuilder
-                .bind(queue)
-                .to(exchange)
+                .bind(tasksHistoryQueue)
+                .to(historyExchange)
                 .withQueueName();
     }
 
+    @Bean
+    public FanoutExchange taskCacheExchange() {
+        return new FanoutExchange(configurationProperties.getCacheInvalidationExchange());
+    }
+
+    /**
+     * Своя временная очередь у каждого узла: сообщение о сбросе получают все узлы.
+     */
+    @Bean
+    public Queue taskCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding taskCacheInvalidationBinding(final Queue taskCacheInvalidationQueue, final FanoutExchange taskCacheExchange) {
+        return BindingBuilder
+                .bind(taskCacheInvalidationQueue)
+                .to(taskCacheExchange);
+    }
+
     @Bean
     public MessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -45,6 +67,7 @@ public class RabbitConfiguration {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        template.setUsePublisherConnection(true);
         return template;
     }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Data
 @Configuration
 @ConfigurationProperties("app.rabbitmq")
@@ -11,4 +13,27 @@ public class RabbitConfigurationProperties {
 
     private String queueTasks;
     private String exchange;
-}
\ No newline at end of file
+    /**
+     * Fanout-обменник для сброса кэша задач на всех узлах.
+     */
+    private String cacheInvalidationExchange;
+    private Publisher publisher = new Publisher();
+
+    @Data
+    public static class Publisher {
+
+        /**
+         * Максимум сообщений, отправленных без подтверждения брокера.
+         */
+        private int maxInFlight = 1000;
+        /**
+         * Сколько ждать освобождения места в окне неподтверждённых сообщений.
+         */
+        private Duration backpressureTimeout = Duration.ofSeconds(5);
+        private Duration confirmTimeout = Duration.ofSeconds(10);
+        /**
+         * Количество событий истории в одном AMQP-сообщении; 1 - без конвертов.
+         */
+        private int envelopeSize = 1;
+    }
+}
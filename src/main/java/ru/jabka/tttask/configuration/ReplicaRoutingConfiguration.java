@@ -0,0 +1,67 @@
+package ru.jabka.tttask.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.jabka.tttask.routing.Replica;
+import ru.jabka.tttask.routing.ReplicaDataSource;
+import ru.jabka.tttask.routing.WriteTrackingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Чтение с реплик: основной {@link DataSource} приложения - {@link LazyConnectionDataSourceProxy},
+ * который берёт физическое соединение при первом запросе, когда уже известно, read-only ли транзакция.
+ * Read-only транзакции получают соединение {@link ReplicaDataSource}, остальные - основной базы.
+ * Чтение без транзакции, в том числе загрузка в кэш задач, идёт в основную базу, чтобы кэш не заполнялся отстающими данными.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.replica-routing", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(final HikariDataSource primaryDataSource,
+                                               final DataSourceProperties dataSourceProperties,
+                                               final ReplicaRoutingProperties properties,
+                                               final MeterRegistry meterRegistry) {
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.getUsername());
+            dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.getPassword());
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+            dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new Replica(dataSource.getPoolName(), dataSource));
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(final HikariDataSource primaryDataSource, final ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new WriteTrackingDataSource(primaryDataSource));
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.replica-routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+    private List<Replica> replicas = new ArrayList<>();
+    /**
+     * Сколько WAL основной базы реплика может ещё не применить; с большим отставанием
+     * она не обслуживает чтение до следующей проверки.
+     */
+    private DataSize maxLag = DataSize.ofMegabytes(16);
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    /**
+     * Сколько после записи запросы того же клиента читают из основной базы; 0 - не закреплять.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+    private int maximumPoolSize = 10;
+    /**
+     * Сколько ждать соединения реплики, прежде чем прочитать из основной базы.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    @Data
+    public static class Replica {
+
+        private String url;
+        /**
+         * Если не задан, берётся из {@code spring.datasource}.
+         */
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.request-timing")
+public class RequestTimingProperties {
+
+    /**
+     * При выключенном замере фильтр, аспект и заголовок не регистрируются вовсе.
+     */
+    private boolean enabled = false;
+    /**
+     * Запросы не быстрее этого порога пишутся в лог всегда.
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+    /**
+     * Доля остальных запросов, которые пишутся в лог, от 0 до 1.
+     */
+    private double sampleRate = 0;
+}
@@ -1,23 +1,110 @@
 package ru.jabka.tttask.configuration;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
 import lombok.Setter;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.function.Function;
+
 @Setter
 @Configuration
 @ConfigurationProperties("services")
 public class ServiceConfiguration {
 
     private String userServiceUrl;
+    private Http http = new Http();
 
     @Bean
-    public RestTemplate userService() {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate userService(final ClientHttpRequestFactory userServiceRequestFactory) {
+        RestTemplate restTemplate = new RestTemplate(userServiceRequestFactory);
         restTemplate.setUriTemplateHandler(new DefaultUriBuilderFactory(userServiceUrl));
         return restTemplate;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public ClientHttpRequestFactory userServiceRequestFactory(final MeterRegistry meterRegistry) {
+        if (http.isHttp2()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(http.getConnectTimeout())
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(http.getReadTimeout());
+            return requestFactory;
+        }
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(http.getConnectionTimeToLive()))
+                        .build())
+                .build();
+        bindPoolMetrics(meterRegistry, connectionManager);
+        return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .build());
+    }
+
+    private void bindPoolMetrics(final MeterRegistry meterRegistry, final PoolingHttpClientConnectionManager connectionManager) {
+        gauge(meterRegistry, connectionManager, "leased", PoolStats::getLeased);
+        gauge(meterRegistry, connectionManager, "available", PoolStats::getAvailable);
+        gauge(meterRegistry, connectionManager, "pending", PoolStats::getPending);
+        gauge(meterRegistry, connectionManager, "max", PoolStats::getMax);
+    }
+
+    private void gauge(final MeterRegistry meterRegistry,
+                       final PoolingHttpClientConnectionManager connectionManager,
+                       final String state,
+                       final Function<PoolStats, Integer> value) {
+        Gauge.builder("tt.http.client.pool.connections", connectionManager, x -> value.apply(x.getTotalStats()))
+                .tag("client", "user-service")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    @Data
+    public static class Http {
+
+        /**
+         * HTTP/2 через JDK HttpClient вместо пула Apache HttpClient.
+         */
+        private boolean http2 = false;
+        private int maxConnections = 200;
+        private int maxConnectionsPerRoute = 50;
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private Duration readTimeout = Duration.ofSeconds(3);
+        /**
+         * Сколько ждать свободного соединения из пула.
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+    }
+}
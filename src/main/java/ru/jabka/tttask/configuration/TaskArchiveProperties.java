@@ -0,0 +1,23 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.task-archive")
+public class TaskArchiveProperties {
+
+    /**
+     * Сколько задач переносится одной транзакцией.
+     */
+    private int batchSize = 500;
+    private Duration moveDelay = Duration.ofMinutes(5);
+    /**
+     * Через сколько после последнего изменения задача в статусе DONE уходит в архив.
+     */
+    private Duration doneRetention = Duration.ofDays(90);
+}
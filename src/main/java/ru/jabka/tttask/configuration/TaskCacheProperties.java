@@ -0,0 +1,19 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("app.task-cache")
+public class TaskCacheProperties {
+
+    private long maximumSize = 10_000;
+    /**
+     * Предельный срок жизни записи: ограничивает устаревание, если сообщение о сбросе потерялось.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+}
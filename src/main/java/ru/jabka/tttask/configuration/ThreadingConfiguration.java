@@ -0,0 +1,40 @@
+package ru.jabka.tttask.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Внутренние исполнители приложения. При {@code spring.threads.virtual.enabled=true}
+ * блокирующие HTTP-запросы к user-service выполняются в виртуальных потоках,
+ * а число одновременных пачек ограничивает лимит исполнителя, а не размер пула.
+ */
+@Configuration
+public class ThreadingConfiguration {
+
+    public static final String USER_BATCH_EXECUTOR = "userBatchExecutor";
+
+    @Bean(USER_BATCH_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualUserBatchExecutor(final UserBatchProperties properties) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("user-batch-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(properties.getMaxConcurrentBatches());
+        return executor;
+    }
+
+    @Bean(USER_BATCH_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor platformUserBatchExecutor(final UserBatchProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("user-batch-");
+        executor.setCorePoolSize(properties.getMaxConcurrentBatches());
+        executor.setMaxPoolSize(properties.getMaxConcurrentBatches());
+        executor.setDaemon(true);
+        return executor;
+    }
+}
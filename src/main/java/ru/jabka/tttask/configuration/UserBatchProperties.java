@@ -0,0 +1,21 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("services.user-batch")
+public class UserBatchProperties {
+
+    private boolean enabled = true;
+    /**
+     * Сколько копить запросы пользователей перед отправкой одного общего запроса.
+     */
+    private Duration window = Duration.ofMillis(5);
+    private int maxBatchSize = 100;
+    private int maxConcurrentBatches = 16;
+}
@@ -0,0 +1,20 @@
+package ru.jabka.tttask.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("services.user-cache")
+public class UserCacheProperties {
+
+    private long maximumSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(5);
+    /**
+     * Сколько помнить, что пользователь не найден.
+     */
+    private Duration notFoundTtl = Duration.ofSeconds(30);
+}
@@ -1,8 +1,20 @@
 package ru.jabka.tttask.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,14 +23,25 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import ru.jabka.tttask.model.Status;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.jabka.tttask.model.AssigneeLoad;
+import ru.jabka.tttask.model.BatchItem;
 import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskFilter;
+import ru.jabka.tttask.model.TaskPage;
 import ru.jabka.tttask.model.TaskRequest;
 import ru.jabka.tttask.model.UpdateTask;
 import ru.jabka.tttask.service.TaskService;
+import ru.jabka.tttask.util.ETags;
 
-import java.util.Set;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
 
+@Log4j2
 @RestController
 @Tag(name = "Задачи")
 @RequiredArgsConstructor
@@ -26,6 +49,7 @@ import java.util.Set;
 public class TaskController {
 
     private final TaskService taskService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @Operation(summary = "Создание новой задачи")
@@ -33,10 +57,30 @@ public class TaskController {
         return taskService.create(taskRequest);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Пакетное создание задач, ошибки возвращаются по каждой задаче")
+    public List<BatchItem<Task>> createAll(@RequestBody final List<TaskRequest> taskRequests) {
+        return taskService.createAll(taskRequests);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Получение задачи по ID")
-    public Task getById(@PathVariable final Long id) {
-        return taskService.getById(id);
+    public ResponseEntity<Task> getById(@PathVariable final Long id) {
+        Task task = taskService.getById(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ETags.ofTask(task))
+                .body(task);
+    }
+
+    @GetMapping("/archive/{id}")
+    @Operation(summary = "Получение задачи из архива удалённых и давно выполненных задач по ID")
+    public ResponseEntity<Task> getArchivedById(@PathVariable final Long id) {
+        Task task = taskService.getArchivedById(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ETags.ofTask(task))
+                .body(task);
     }
 
     @PatchMapping
@@ -45,11 +89,68 @@ public class TaskController {
         return taskService.update(updateTask);
     }
 
+    @PatchMapping("/batch")
+    @Operation(summary = "Пакетное редактирование задач, ошибки возвращаются по каждой задаче")
+    public List<BatchItem<Task>> updateAll(@RequestBody final List<UpdateTask> updateTasks) {
+        return taskService.updateAll(updateTasks);
+    }
+
     @GetMapping
-    @Operation(summary = "Получение задачи по критериям")
-    public Set<Task> find(@RequestParam(required = false) final Status status,
-                          @RequestParam(required = false) final Long assignee) {
-        return taskService.getAllByFilter(status, assignee);
+    @Operation(summary = "Получение задач по критериям постранично, в порядке id")
+    public ResponseEntity<TaskPage> find(@ParameterObject final TaskFilter filter,
+                                         @RequestParam(required = false) final Integer limit,
+                                         @RequestParam(required = false) final String cursor,
+                                         final WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag = taskService.getPageTag(filter, limit, cursor);
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .cacheControl(CacheControl.noCache())
+                        .eTag(eTag)
+                        .build();
+            }
+        }
+        TaskPage page = taskService.getAllByFilter(filter, limit, cursor);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ETags.ofPage(page))
+                .body(page);
+    }
+
+    @GetMapping("/due")
+    @Operation(summary = "Активные задачи со сроком исполнения в периоде, постранично в порядке срока")
+    public TaskPage getDue(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to,
+                           @RequestParam(required = false) final Long assigneeId,
+                           @RequestParam(required = false) final Integer limit,
+                           @RequestParam(required = false) final String cursor) {
+        return taskService.getDue(from, to, assigneeId, limit, cursor);
+    }
+
+    @GetMapping("/overdue")
+    @Operation(summary = "Просроченные активные задачи, постранично в порядке срока")
+    public TaskPage getOverdue(@RequestParam(required = false) final Long assigneeId,
+                               @RequestParam(required = false) final Integer limit,
+                               @RequestParam(required = false) final String cursor) {
+        return taskService.getOverdue(assigneeId, limit, cursor);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Поиск задач по словам и подстроке названия с критериями фильтра, по убыванию релевантности")
+    public TaskPage search(@RequestParam final String query,
+                           @ParameterObject final TaskFilter filter,
+                           @RequestParam(required = false) final Integer limit,
+                           @RequestParam(required = false) final String cursor) {
+        return taskService.search(query, filter, limit, cursor);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Выгрузка задач по критериям в формате NDJSON, по мере чтения из базы")
+    public ResponseEntity<StreamingResponseBody> export(@ParameterObject final TaskFilter filter) {
+        taskService.validateFilter(filter);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeNdjson(out, filter));
     }
 
     @GetMapping("/active")
@@ -57,4 +158,39 @@ public class TaskController {
     public Boolean existsActiveTasksByAssignee(@RequestParam final Long assigneeId) {
         return taskService.existsActiveTasksByAssignee(assigneeId);
     }
+
+    @GetMapping("/active/count")
+    @Operation(summary = "Число активных задач исполнителя по статусам")
+    public AssigneeLoad getAssigneeLoad(@RequestParam final Long assigneeId) {
+        return taskService.getAssigneeLoad(assigneeId);
+    }
+
+    @PostMapping("/active/bulk")
+    @Operation(summary = "Наличие и число активных задач для списка исполнителей")
+    public List<AssigneeLoad> getAssigneeLoads(@RequestBody final List<Long> assigneeIds) {
+        return taskService.getAssigneeLoads(assigneeIds);
+    }
+
+    private void writeNdjson(final OutputStream out, final TaskFilter filter) {
+        ObjectWriter writer = objectMapper.writerFor(Task.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try {
+            JsonGenerator generator = objectMapper.createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            taskService.exportByFilter(filter, task -> {
+                try {
+                    writer.writeValue(generator, task);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (generator.getOutputContext().getEntryCount() > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        } catch (IOException | UncheckedIOException e) {
+            log.info("Выгрузка задач прервана: {}", e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package ru.jabka.tttask.exception;
+
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(final String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,22 @@
 package ru.jabka.tttask.exception;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
 import ru.jabka.tttask.model.ServiceResponse;
+import ru.jabka.tttask.service.TaskMetrics;
 
 @Log4j2
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class ExceptionController {
 
+    private final TaskMetrics taskMetrics;
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ServiceResponse> handleException(Exception e) {
         log.error(e);
@@ -21,9 +28,18 @@ public class ExceptionController {
     }
 
     @ExceptionHandler(BadRequestException.class)
-    public ResponseEntity<ServiceResponse> handleBadRequestException(BadRequestException e) {
+    public ResponseEntity<ServiceResponse> handleBadRequestException(BadRequestException e, HandlerMethod handlerMethod) {
         log.error(e);
+        taskMetrics.rejected(handlerMethod.getMethod().getName(), e);
         return ResponseEntity.badRequest()
                 .body(new ServiceResponse(false, e.getMessage()));
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ServiceResponse> handleConflictException(ConflictException e, HandlerMethod handlerMethod) {
+        log.error(e);
+        taskMetrics.rejected(handlerMethod.getMethod().getName(), e);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ServiceResponse(false, e.getMessage()));
+    }
+}
@@ -0,0 +1,22 @@
+package ru.jabka.tttask.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Число активных задач исполнителя по статусам.
+ */
+public record AssigneeLoad(
+        Long assignee,
+        long toDo,
+        long inProgress
+) {
+
+    @JsonProperty
+    public boolean active() {
+        return total() > 0;
+    }
+
+    public long total() {
+        return toDo + inProgress;
+    }
+}
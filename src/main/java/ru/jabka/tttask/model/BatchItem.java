@@ -0,0 +1,20 @@
+package ru.jabka.tttask.model;
+
+/**
+ * Результат обработки одного элемента пакетного запроса: результат либо текст ошибки.
+ * {@code index} - позиция элемента в запросе.
+ */
+public record BatchItem<T>(
+        int index,
+        T result,
+        String error
+) {
+
+    public static <T> BatchItem<T> success(final int index, final T result) {
+        return new BatchItem<>(index, result, null);
+    }
+
+    public static <T> BatchItem<T> failure(final int index, final String error) {
+        return new BatchItem<>(index, null, error);
+    }
+}
@@ -2,8 +2,6 @@ package ru.jabka.tttask.model;
 
 import lombok.Getter;
 
-import java.util.stream.Stream;
-
 @Getter
 public enum Status {
     TO_DO(1L),
@@ -11,17 +9,23 @@ public enum Status {
     DONE(3L),
     DELETED(4L);
 
+    private static final Status[] VALUES = values();
+
     private final Long id;
 
     Status(Long id) {
         this.id = id;
     }
 
+    /**
+     * Вызывается для каждой прочитанной строки задачи, поэтому без Stream и копии {@code values()}.
+     */
     public static Status byId(Long id) {
-        return Stream.of(Status.values())
-                .filter(x -> id.equals(x.getId()))
-                .findFirst()
-                .orElseThrow(() ->
-                        new RuntimeException(String.format("Статус с id = %d не найден", id)));
+        for (Status status : VALUES) {
+            if (status.id.equals(id)) {
+                return status;
+            }
+        }
+        throw new RuntimeException(String.format("Статус с id = %d не найден", id));
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package ru.jabka.tttask.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum StatusTransition {
 
     TODO_TO_IN_PROGRESS(Status.TO_DO, Status.IN_PROGRESS),
@@ -8,6 +11,8 @@ public enum StatusTransition {
     IN_PROGRESS_TO_DELETED(Status.IN_PROGRESS, Status.DELETED),
     DONE_TO_DELETED(Status.DONE, Status.DELETED);
 
+    private static final StatusTransition[] VALUES = values();
+
     private final Status from;
     private final Status to;
 
@@ -17,11 +22,27 @@ public enum StatusTransition {
     }
 
     public static StatusTransition findTransition(Status from, Status to) {
-        for (StatusTransition transition : values()) {
+        for (StatusTransition transition : VALUES) {
             if (transition.from.equals(from) && transition.to.equals(to)) {
                 return transition;
             }
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Статусы, из которых разрешён переход в {@code to}.
+     */
+    public static Set<Status> allowedFrom(Status to) {
+        if (to == null) {
+            return Set.of();
+        }
+        Set<Status> from = EnumSet.noneOf(Status.class);
+        for (StatusTransition transition : VALUES) {
+            if (transition.to.equals(to)) {
+                from.add(transition.from);
+            }
+        }
+        return from;
+    }
+}
@@ -15,6 +15,7 @@ public record Task(
         Long assignee,
         Long author,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Integer version
 ) {
 }
\ No newline at end of file
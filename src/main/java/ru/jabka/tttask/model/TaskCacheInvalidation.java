@@ -0,0 +1,6 @@
+package ru.jabka.tttask.model;
+
+import java.util.List;
+
+public record TaskCacheInvalidation(List<Long> ids) {
+}
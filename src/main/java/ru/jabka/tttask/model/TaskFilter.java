@@ -0,0 +1,27 @@
+package ru.jabka.tttask.model;
+
+import lombok.Builder;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Критерии поиска задач. Незаданные поля не участвуют в запросе.
+ * Нижние границы диапазонов включаются, верхняя граница срока исполнения включается,
+ * верхние границы дат создания и обновления - нет.
+ */
+@Builder
+public record TaskFilter(
+        Status status,
+        Set<Long> assignee,
+        Long author,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate deadLineFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate deadLineTo,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedTo
+) {
+}
@@ -0,0 +1,9 @@
+package ru.jabka.tttask.model;
+
+import java.util.List;
+
+public record TaskPage(
+        List<Task> items,
+        String next
+) {
+}
@@ -0,0 +1,10 @@
+package ru.jabka.tttask.model;
+
+/**
+ * Задача из результатов поиска и её релевантность, по которой строится курсор следующей страницы.
+ */
+public record TaskSearchHit(
+        Task task,
+        float rank
+) {
+}
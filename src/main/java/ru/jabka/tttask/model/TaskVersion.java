@@ -0,0 +1,7 @@
+package ru.jabka.tttask.model;
+
+public record TaskVersion(
+        Long id,
+        Integer version
+) {
+}
@@ -12,6 +12,7 @@ public record UpdateTask(
         LocalDate deadLine,
         Long assignee,
         Status status,
-        Long editor
+        Long editor,
+        Integer version
 ) {
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package ru.jabka.tttask.model;
+
+/**
+ * Задача после условного обновления и её статус до него - чтобы отличить смену статуса от повторной отправки того же.
+ */
+public record UpdatedTask(
+        Task task,
+        Status previousStatus
+) {
+}
@@ -0,0 +1,8 @@
+package ru.jabka.tttask.model.history;
+
+public record OutboxEvent(
+        Long id,
+        Long taskId,
+        String payload
+) {
+}
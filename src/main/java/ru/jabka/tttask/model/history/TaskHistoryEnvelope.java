@@ -0,0 +1,7 @@
+package ru.jabka.tttask.model.history;
+
+import java.io.Serializable;
+import java.util.List;
+
+public record TaskHistoryEnvelope(List<TaskHistory> events) implements Serializable {
+}
@@ -0,0 +1,51 @@
+package ru.jabka.tttask.profiling;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Снимает план запроса на отдельном соединении в транзакции, которая всегда откатывается.
+ * {@code EXPLAIN (ANALYZE, BUFFERS)} выполняет запрос повторно, поэтому применяется только к чтению
+ * без блокировок и побочных эффектов; для записи берётся план без выполнения.
+ */
+class PlanCapturer {
+
+    private static final Pattern READ = Pattern.compile("^\\s*(SELECT|WITH)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SIDE_EFFECTS = Pattern.compile(
+            "\\b(INSERT|UPDATE|DELETE|MERGE|FOR\\s+SHARE|FOR\\s+KEY\\s+SHARE|nextval|set_config|pg_\\w+)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration timeout;
+
+    PlanCapturer(final DataSource dataSource, final Duration timeout) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.timeout = timeout;
+    }
+
+    QueryStats.Plan capture(final String sql, final SqlParameterSource parameters, final long executionNanos) {
+        boolean analyze = isPlainRead(sql);
+        String explain = (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + sql;
+        List<String> lines = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.getJdbcTemplate().queryForObject("SELECT set_config('statement_timeout', ?, true)",
+                    String.class, timeout.toMillis() + "ms");
+            return jdbcTemplate.queryForList(explain, parameters, String.class);
+        });
+        return new QueryStats.Plan(Instant.now(), executionNanos / 1e6, analyze, String.join("\n", lines));
+    }
+
+    static boolean isPlainRead(final String sql) {
+        return READ.matcher(sql).find() && !SIDE_EFFECTS.matcher(sql).find();
+    }
+}
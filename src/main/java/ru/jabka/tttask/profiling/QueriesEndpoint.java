@@ -0,0 +1,33 @@
+package ru.jabka.tttask.profiling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/queries} - статистика запросов по убыванию суммарного времени с последними планами,
+ * {@code DELETE /actuator/queries} - сброс статистики.
+ */
+@Component
+@Endpoint(id = "queries")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.query-profiler", name = "enabled", havingValue = "true")
+public class QueriesEndpoint {
+
+    private final QueryProfiler queryProfiler;
+
+    @ReadOperation
+    public List<QueryStats.Snapshot> queries() {
+        return queryProfiler.snapshot();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryProfiler.reset();
+    }
+}
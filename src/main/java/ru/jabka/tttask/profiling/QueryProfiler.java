@@ -0,0 +1,167 @@
+package ru.jabka.tttask.profiling;
+
+import lombok.extern.log4j.Log4j2;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.jabka.tttask.configuration.QueryProfilerProperties;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Профилирует запросы, идущие через {@code NamedParameterJdbcTemplate}: время и число строк по каждому
+ * тексту запроса. Запросы медленнее {@code app.query-profiler.slow-threshold} пишутся в лог, а для доли
+ * из них в фоне снимается план, см. {@link PlanCapturer}. Статистика доступна через {@code /actuator/queries}.
+ */
+@Log4j2
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "app.query-profiler", name = "enabled", havingValue = "true")
+public class QueryProfiler implements DisposableBean {
+
+    private static final int PLAN_QUEUE_SIZE = 16;
+    private static final String OTHER = "(other)";
+
+    private final QueryProfilerProperties properties;
+    private final PlanCapturer planCapturer;
+    private final ThreadPoolExecutor planExecutor;
+    private final ConcurrentMap<String, QueryStats> statements = new ConcurrentHashMap<>();
+
+    public QueryProfiler(final DataSource dataSource, final QueryProfilerProperties properties) {
+        this.properties = properties;
+        this.planCapturer = new PlanCapturer(dataSource, properties.getPlanTimeout());
+        this.planExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(PLAN_QUEUE_SIZE), planThreads(), new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Around("execution(* org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations.*(String, ..))")
+    public Object profile(final ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result = joinPoint.proceed();
+        long elapsed = System.nanoTime() - start;
+        Object[] args = joinPoint.getArgs();
+        record((String) args[0], args.length > 1 ? args[1] : null, joinPoint.getSignature().getName(), result, elapsed);
+        return result;
+    }
+
+    public List<QueryStats.Snapshot> snapshot() {
+        return statements.values().stream()
+                .map(QueryStats::snapshot)
+                .filter(snapshot -> snapshot.executions() > 0)
+                .sorted(Comparator.comparingDouble(QueryStats.Snapshot::totalMs).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    @Override
+    public void destroy() {
+        planExecutor.shutdownNow();
+    }
+
+    private void record(final String sql, final Object parameters, final String method, final Object result, final long elapsed) {
+        QueryStats stats = stats(sql);
+        long rows = rowCount(method, result);
+        boolean slow = elapsed >= properties.getSlowThreshold().toNanos();
+        stats.record(elapsed, rows, slow);
+        if (!slow) {
+            return;
+        }
+        log.warn("slow_query ms={} rows={} sql=\"{}\"", elapsed / 1_000_000, rows, stats.sql());
+        if (!OTHER.equals(stats.sql())
+                && ThreadLocalRandom.current().nextDouble() < properties.getPlanSampleRate()
+                && stats.tryRequestPlan(System.nanoTime(), properties.getPlanInterval().toNanos())) {
+            SqlParameterSource parameterSource = parameterSource(parameters);
+            planExecutor.execute(() -> capture(stats, sql, parameterSource, elapsed));
+        }
+    }
+
+    private void capture(final QueryStats stats, final String sql, final SqlParameterSource parameters, final long elapsed) {
+        try {
+            QueryStats.Plan plan = planCapturer.capture(sql, parameters, elapsed);
+            stats.setPlan(plan);
+            log.warn("query_plan ms={} analyzed={} sql=\"{}\"\n{}",
+                    elapsed / 1_000_000, plan.analyzed(), stats.sql(), plan.text());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось снять план запроса: {}", stats.sql(), e);
+        }
+    }
+
+    private QueryStats stats(final String sql) {
+        QueryStats stats = statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        if (statements.size() >= properties.getMaxStatements()) {
+            return statements.computeIfAbsent(OTHER, QueryStats::new);
+        }
+        return statements.computeIfAbsent(sql, key -> new QueryStats(normalize(key)));
+    }
+
+    /**
+     * Число строк результата, либо -1, если метод его не возвращает.
+     */
+    static long rowCount(final String method, final Object result) {
+        return switch (method) {
+            case "query", "queryForList" -> result instanceof Collection<?> rows ? rows.size() : -1;
+            case "queryForObject", "queryForMap" -> 1;
+            case "update" -> result instanceof Integer count ? count : -1;
+            case "batchUpdate" -> result instanceof int[] counts ? sum(counts) : -1;
+            default -> -1;
+        };
+    }
+
+    private static long sum(final int[] counts) {
+        long total = 0;
+        for (int count : counts) {
+            if (count < 0) {
+                return -1;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SqlParameterSource parameterSource(final Object parameters) {
+        if (parameters instanceof SqlParameterSource source) {
+            return source;
+        }
+        if (parameters instanceof SqlParameterSource[] batch && batch.length > 0) {
+            return batch[0];
+        }
+        if (parameters instanceof Map<?, ?> map) {
+            return new MapSqlParameterSource((Map<String, ?>) map);
+        }
+        return EmptySqlParameterSource.INSTANCE;
+    }
+
+    private static String normalize(final String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    private static CustomizableThreadFactory planThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("query-plan-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.jabka.tttask.profiling;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Накопленная статистика одного текста запроса и последний снятый план.
+ */
+public final class QueryStats {
+
+    private final String sql;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder countedExecutions = new LongAdder();
+    private final LongAdder slowExecutions = new LongAdder();
+    private final AtomicLong lastPlanRequestedAt = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicReference<Plan> plan = new AtomicReference<>();
+
+    QueryStats(final String sql) {
+        this.sql = sql;
+    }
+
+    String sql() {
+        return sql;
+    }
+
+    /**
+     * @param rowCount число строк результата, либо отрицательное, если его не узнать
+     */
+    void record(final long nanos, final long rowCount, final boolean slow) {
+        executions.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        if (rowCount >= 0) {
+            rows.add(rowCount);
+            countedExecutions.increment();
+        }
+        if (slow) {
+            slowExecutions.increment();
+        }
+    }
+
+    /**
+     * Разрешает снятие плана не чаще раза в {@code intervalNanos}; из параллельных кандидатов выигрывает один.
+     */
+    boolean tryRequestPlan(final long now, final long intervalNanos) {
+        long last = lastPlanRequestedAt.get();
+        return (last == Long.MIN_VALUE || now - last >= intervalNanos) && lastPlanRequestedAt.compareAndSet(last, now);
+    }
+
+    void setPlan(final Plan plan) {
+        this.plan.set(plan);
+    }
+
+    Snapshot snapshot() {
+        long count = executions.sum();
+        long total = totalNanos.sum();
+        long counted = countedExecutions.sum();
+        return new Snapshot(sql, count, total / 1e6, count == 0 ? 0 : total / 1e6 / count, maxNanos.get() / 1e6,
+                counted == 0 ? null : (double) rows.sum() / counted, slowExecutions.sum(), plan.get());
+    }
+
+    /**
+     * План медленного выполнения; {@code analyzed} - получен ли он с ANALYZE, то есть с фактическим временем.
+     */
+    public record Plan(Instant capturedAt, double executionMs, boolean analyzed, String text) {
+    }
+
+    public record Snapshot(String sql,
+                    long executions,
+                    double totalMs,
+                    double meanMs,
+                    double maxMs,
+                    Double meanRows,
+                    long slowExecutions,
+                    Plan lastPlan) {
+    }
+}
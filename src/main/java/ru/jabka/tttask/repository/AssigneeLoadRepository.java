@@ -0,0 +1,198 @@
+package ru.jabka.tttask.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.jabka.tttask.model.AssigneeLoad;
+import ru.jabka.tttask.model.Status;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Счётчики активных задач по исполнителям. Триггер на tt.task в транзакции изменения задачи только
+ * дописывает приращения в tt.assignee_load_delta, не блокируя строк счётчиков, а свёртка периодически
+ * переносит их в tt.assignee_load. Значение счётчика — сумма строки tt.assignee_load и несвёрнутых приращений.
+ */
+@Repository
+@Timed(value = "tt.repository.query", histogram = true)
+@RequiredArgsConstructor
+public class AssigneeLoadRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private static final long RECONCILE_LOCK_KEY = 0x7474_6C6F_6164L;
+    private static final long COMPACT_LOCK_KEY = 0x7474_6C64_6C74L;
+
+    private static final String EXISTS_ACTIVE = """
+            SELECT EXISTS (SELECT 1
+                           FROM (SELECT status, task_count
+                                 FROM tt.assignee_load
+                                 WHERE assignee = :assignee
+                                 UNION ALL
+                                 SELECT status, task_count
+                                 FROM tt.assignee_load_delta
+                                 WHERE assignee = :assignee) l
+                           GROUP BY status
+                           HAVING sum(task_count) > 0)
+            """;
+
+    private static final String GET_BY_ASSIGNEES = """
+            SELECT assignee, status, sum(task_count) AS task_count
+            FROM (SELECT assignee, status, task_count
+                  FROM tt.assignee_load
+                  WHERE assignee = ANY (:assignees)
+                  UNION ALL
+                  SELECT assignee, status, task_count
+                  FROM tt.assignee_load_delta
+                  WHERE assignee = ANY (:assignees)) l
+            GROUP BY assignee, status
+            HAVING sum(task_count) > 0
+            """;
+
+    private static final String TRY_LOCK = """
+            SELECT pg_try_advisory_xact_lock(:key)
+            """;
+
+    private static final String COMPACT = """
+            WITH moved AS (DELETE FROM tt.assignee_load_delta
+                           WHERE id IN (SELECT id
+                                        FROM tt.assignee_load_delta
+                                        ORDER BY id
+                                        LIMIT :limit)
+                           RETURNING assignee, status, task_count),
+                 applied AS (INSERT INTO tt.assignee_load AS l (assignee, status, task_count)
+                             SELECT assignee, status, sum(task_count)
+                             FROM moved
+                             GROUP BY assignee, status
+                             ORDER BY assignee, status
+                             ON CONFLICT (assignee, status) DO UPDATE SET task_count = l.task_count + EXCLUDED.task_count)
+            SELECT count(*)
+            FROM moved
+            """;
+
+    private static final String GET_RECONCILE_BOUND = """
+            SELECT assignee
+            FROM tt.task
+            WHERE status IN (1, 2)
+              AND assignee > :after
+            ORDER BY assignee
+            OFFSET :limit LIMIT 1
+            """;
+
+    private static final String RECONCILE = """
+            WITH actual AS (SELECT assignee, status, count(*)::INT AS task_count
+                            FROM tt.task
+                            WHERE status IN (1, 2)
+                              AND assignee > :after
+                              AND assignee <= :until
+                            GROUP BY assignee, status),
+                 stored AS (SELECT assignee, status, sum(task_count)::INT AS task_count
+                            FROM (SELECT assignee, status, task_count
+                                  FROM tt.assignee_load
+                                  WHERE assignee > :after
+                                    AND assignee <= :until
+                                  UNION ALL
+                                  SELECT assignee, status, task_count
+                                  FROM tt.assignee_load_delta
+                                  WHERE assignee > :after
+                                    AND assignee <= :until) l
+                            GROUP BY assignee, status),
+                 corrected AS (INSERT INTO tt.assignee_load_delta (assignee, status, task_count)
+                               SELECT COALESCE(a.assignee, s.assignee),
+                                      COALESCE(a.status, s.status),
+                                      COALESCE(a.task_count, 0) - COALESCE(s.task_count, 0)
+                               FROM actual a
+                                        FULL JOIN stored s ON s.assignee = a.assignee AND s.status = a.status
+                               WHERE COALESCE(a.task_count, 0) <> COALESCE(s.task_count, 0)
+                               RETURNING 1)
+            SELECT count(*)
+            FROM corrected
+            """;
+
+    public boolean existsActive(final Long assignee) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_ACTIVE, new MapSqlParameterSource("assignee", assignee), Boolean.class));
+    }
+
+    public AssigneeLoad getByAssignee(final Long assignee) {
+        return getByAssignees(List.of(assignee)).get(0);
+    }
+
+    /**
+     * Счётчики исполнителей одним запросом; id передаются массивом, а не списком параметров,
+     * поэтому текст запроса не зависит от их числа.
+     *
+     * @return счётчики в порядке переданных id, с нулями для исполнителей без активных задач
+     */
+    public List<AssigneeLoad> getByAssignees(final Collection<Long> assignees) {
+        Map<Long, long[]> counts = new HashMap<>();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("assignees", new SqlParameterValue(Types.ARRAY, assignees.toArray(Long[]::new)));
+        jdbcTemplate.query(GET_BY_ASSIGNEES, params, rs -> {
+            Status status = Status.byId(rs.getLong("status"));
+            counts.computeIfAbsent(rs.getLong("assignee"), x -> new long[2])[status == Status.TO_DO ? 0 : 1] = rs.getLong("task_count");
+        });
+        return assignees.stream()
+                .map(assignee -> {
+                    long[] count = counts.getOrDefault(assignee, new long[2]);
+                    return new AssigneeLoad(assignee, count[0], count[1]);
+                })
+                .toList();
+    }
+
+    public boolean tryLockReconcile() {
+        return tryLock(RECONCILE_LOCK_KEY);
+    }
+
+    public boolean tryLockCompact() {
+        return tryLock(COMPACT_LOCK_KEY);
+    }
+
+    /**
+     * Переносит до {@code limit} приращений в tt.assignee_load. Строки счётчиков блокируются
+     * в порядке (assignee, status), а запись задач их не блокирует вовсе.
+     *
+     * @return число перенесённых приращений
+     */
+    public int compact(final int limit) {
+        Long moved = jdbcTemplate.queryForObject(COMPACT, new MapSqlParameterSource("limit", limit), Long.class);
+        return moved == null ? 0 : moved.intValue();
+    }
+
+    /**
+     * Верхняя граница следующего диапазона сверки: исполнитель, на котором после {@code after}
+     * набирается {@code limit} активных задач.
+     *
+     * @return граница диапазона или {@link Long#MAX_VALUE}, если задач меньше
+     */
+    public long getReconcileBound(final long after, final int limit) {
+        List<Long> bound = jdbcTemplate.queryForList(GET_RECONCILE_BOUND, new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit), Long.class);
+        return bound.isEmpty() ? Long.MAX_VALUE : bound.get(0);
+    }
+
+    /**
+     * Сверяет счётчики исполнителей из диапазона {@code (after, until]} с задачами. Задачи и счётчики
+     * читаются в одном снимке, а расхождение дописывается приращением, поэтому сверка не блокирует
+     * запись задач и не теряет изменений параллельных транзакций.
+     *
+     * @return число исправленных счётчиков
+     */
+    public int reconcile(final long after, final long until) {
+        Long repaired = jdbcTemplate.queryForObject(RECONCILE, new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("until", until), Long.class);
+        return repaired == null ? 0 : repaired.intValue();
+    }
+
+    private boolean tryLock(final long key) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, new MapSqlParameterSource("key", key), Boolean.class));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.jabka.tttask.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.jabka.tttask.model.history.OutboxEvent;
+import ru.jabka.tttask.model.history.TaskHistory;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Ключ advisory-блокировки, под которой работает ровно один ретранслятор в кластере:
+     * так события одной задачи уходят в очередь строго в порядке записи.
+     */
+    private static final long RELAY_LOCK_KEY = 0x7474_7461_736BL;
+
+    private static final String INSERT = """
+            INSERT INTO tt.task_outbox (task_id, payload)
+            VALUES (:task_id, CAST(:payload AS JSONB))
+            """;
+
+    private static final String TRY_LOCK = """
+            SELECT pg_try_advisory_xact_lock(:key)
+            """;
+
+    private static final String GET_BATCH = """
+            SELECT id, task_id, payload::text AS payload
+            FROM tt.task_outbox
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private static final String DELETE = """
+            DELETE FROM tt.task_outbox
+            WHERE id IN (:ids)
+            """;
+
+    @Timed(value = "tt.repository.query", histogram = true)
+    public void save(final TaskHistory taskHistory) {
+        jdbcTemplate.update(INSERT, historyToSql(taskHistory));
+    }
+
+    @Timed(value = "tt.repository.query", histogram = true)
+    public void saveAll(final List<TaskHistory> taskHistories) {
+        if (taskHistories.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, taskHistories.stream()
+                .map(this::historyToSql)
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    @Timed(value = "tt.repository.query", histogram = true)
+    public boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, new MapSqlParameterSource("key", RELAY_LOCK_KEY), Boolean.class));
+    }
+
+    @Timed(value = "tt.repository.query", histogram = true)
+    public List<OutboxEvent> getBatch(final int limit) {
+        return jdbcTemplate.query(GET_BATCH, new MapSqlParameterSource("limit", limit), (rs, rowNum) ->
+                new OutboxEvent(rs.getLong("id"), rs.getLong("task_id"), rs.getString("payload")));
+    }
+
+    @Timed(value = "tt.repository.query", histogram = true)
+    public void delete(final Collection<Long> ids) {
+        jdbcTemplate.update(DELETE, new MapSqlParameterSource("ids", ids));
+    }
+
+    public TaskHistory readPayload(final OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.payload(), TaskHistory.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Не удалось прочитать событие истории с id = %d", event.id()), e);
+        }
+    }
+
+    private MapSqlParameterSource historyToSql(final TaskHistory taskHistory) {
+        return new MapSqlParameterSource()
+                .addValue("task_id", taskHistory.getTaskId())
+                .addValue("payload", toJson(taskHistory));
+    }
+
+    private String toJson(final TaskHistory taskHistory) {
+        try {
+            return objectMapper.writeValueAsString(taskHistory);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Не удалось сериализовать событие истории задачи с id = %d", taskHistory.getTaskId()), e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.jabka.tttask.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.jabka.tttask.exception.BadRequestException;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.repository.mapper.TaskMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Архив задач tt.task_archive: удалённые и давно выполненные задачи, вынесенные из tt.task,
+ * чтобы рабочая таблица и её индексы содержали только актуальные строки. Архивные задачи только читаются.
+ */
+@Repository
+@Timed(value = "tt.repository.query", histogram = true)
+@RequiredArgsConstructor
+public class TaskArchiveRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TaskMapper taskMapper;
+
+    private static final long ARCHIVE_LOCK_KEY = 0x7474_6172_6368L;
+
+    private static final String TRY_LOCK = """
+            SELECT pg_try_advisory_xact_lock(:key)
+            """;
+
+    private static final String MOVE_BATCH = """
+            WITH moved AS (DELETE FROM tt.task t
+                           WHERE t.id IN (SELECT c.id
+                                          FROM tt.task c
+                                          WHERE c.status = 4
+                                             OR c.status = 3 AND c.updated_at < CURRENT_TIMESTAMP - make_interval(secs => :done_retention)
+                                          LIMIT :limit
+                                          FOR UPDATE SKIP LOCKED)
+                           RETURNING t.*)
+            INSERT INTO tt.task_archive (id, title, description, status, dead_line, assignee, author, created_at, updated_at, version)
+            SELECT id, title, description, status, dead_line, assignee, author, created_at, updated_at, version
+            FROM moved
+            RETURNING id
+            """;
+
+    private static final String GET_BY_ID = """
+            SELECT a.*
+            FROM tt.task_archive a
+            WHERE a.id = :id
+            """;
+
+    /**
+     * Перенос выполняет один узел кластера; блокировка снимается с окончанием транзакции.
+     */
+    public boolean tryLockArchive() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, new MapSqlParameterSource("key", ARCHIVE_LOCK_KEY), Boolean.class));
+    }
+
+    /**
+     * Переносит в архив до {@code limit} удалённых задач и задач в DONE, не менявшихся дольше {@code doneRetention}.
+     * Строки, заблокированные параллельным изменением, пропускаются до следующего запуска.
+     *
+     * @return id перенесённых задач
+     */
+    public List<Long> moveBatch(final Duration doneRetention, final int limit) {
+        return jdbcTemplate.queryForList(MOVE_BATCH, new MapSqlParameterSource()
+                .addValue("done_retention", doneRetention.toSeconds())
+                .addValue("limit", limit), Long.class);
+    }
+
+    public Task getById(final Long id) {
+        List<Task> tasks = jdbcTemplate.query(GET_BY_ID, new MapSqlParameterSource("id", id), taskMapper);
+        if (tasks.isEmpty()) {
+            throw new BadRequestException(String.format("Задача с id %d не найдена в архиве", id));
+        }
+        return tasks.get(0);
+    }
+}
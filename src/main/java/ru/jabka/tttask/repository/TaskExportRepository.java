@@ -0,0 +1,48 @@
+package ru.jabka.tttask.repository;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.jabka.tttask.configuration.ExportConfigurationProperties;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskFilter;
+import ru.jabka.tttask.repository.mapper.TaskMapper;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Потоковое чтение задач. PostgreSQL открывает серверный курсор только при выключенном
+ * autocommit и заданном fetch size, поэтому методы нужно вызывать внутри транзакции.
+ */
+@Repository
+@Timed(value = "tt.repository.query", histogram = true)
+public class TaskExportRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TaskMapper taskMapper;
+
+    private static final String STREAM_BY_FILTER = """
+            SELECT t.*
+            FROM tt.task t
+            WHERE %s
+            ORDER BY t.id
+            """;
+
+    public TaskExportRepository(final DataSource dataSource,
+                                final TaskMapper taskMapper,
+                                final ExportConfigurationProperties properties) {
+        JdbcTemplate streamingTemplate = new JdbcTemplate(dataSource);
+        streamingTemplate.setFetchSize(properties.getFetchSize());
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(streamingTemplate);
+        this.taskMapper = taskMapper;
+    }
+
+    public void streamByFilter(final TaskFilter filter, final Consumer<Task> consumer) {
+        TaskFilterSql sql = TaskFilterSql.of(filter);
+        jdbcTemplate.query(STREAM_BY_FILTER.formatted(sql.where()), sql.params(), rs -> {
+            consumer.accept(taskMapper.mapRow(rs, rs.getRow()));
+        });
+    }
+}
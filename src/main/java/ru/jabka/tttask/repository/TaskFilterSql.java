@@ -0,0 +1,58 @@
+package ru.jabka.tttask.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.util.CollectionUtils;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.TaskFilter;
+
+import java.sql.Types;
+import java.util.StringJoiner;
+
+/**
+ * Условие WHERE из заданных критериев фильтра. В запрос попадают только переданные предикаты,
+ * а удалённые задачи отсекаются по id статуса без join с {@code tt.status}, поэтому
+ * планировщик может выбрать частичный индекс с {@code WHERE status <> 4}.
+ */
+final class TaskFilterSql {
+
+    private final StringJoiner where = new StringJoiner(" AND ");
+    private final MapSqlParameterSource params = new MapSqlParameterSource();
+
+    private TaskFilterSql() {
+        where.add("t.status <> " + Status.DELETED.getId());
+    }
+
+    static TaskFilterSql of(final TaskFilter filter) {
+        TaskFilterSql sql = new TaskFilterSql();
+        if (filter.status() != null) {
+            sql.and("t.status = :status", "status", filter.status().getId(), Types.INTEGER);
+        }
+        if (!CollectionUtils.isEmpty(filter.assignee())) {
+            sql.and("t.assignee IN (:assignee)", "assignee", filter.assignee(), Types.INTEGER);
+        }
+        sql.and("t.author = :author", "author", filter.author(), Types.INTEGER);
+        sql.and("t.dead_line >= :dead_line_from", "dead_line_from", filter.deadLineFrom(), Types.DATE);
+        sql.and("t.dead_line <= :dead_line_to", "dead_line_to", filter.deadLineTo(), Types.DATE);
+        sql.and("t.created_at >= :created_from", "created_from", filter.createdFrom(), Types.TIMESTAMP);
+        sql.and("t.created_at < :created_to", "created_to", filter.createdTo(), Types.TIMESTAMP);
+        sql.and("t.updated_at >= :updated_from", "updated_from", filter.updatedFrom(), Types.TIMESTAMP);
+        sql.and("t.updated_at < :updated_to", "updated_to", filter.updatedTo(), Types.TIMESTAMP);
+        return sql;
+    }
+
+    TaskFilterSql and(final String predicate, final String name, final Object value, final int sqlType) {
+        if (value != null) {
+            where.add(predicate);
+            params.addValue(name, value, sqlType);
+        }
+        return this;
+    }
+
+    String where() {
+        return where.toString();
+    }
+
+    MapSqlParameterSource params() {
+        return params;
+    }
+}
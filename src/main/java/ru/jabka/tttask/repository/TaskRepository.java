@@ -1,70 +1,143 @@
 package ru.jabka.tttask.repository;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.jabka.tttask.exception.BadRequestException;
+import ru.jabka.tttask.model.Status;
 import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskFilter;
+import ru.jabka.tttask.model.TaskSearchHit;
+import ru.jabka.tttask.model.TaskVersion;
+import ru.jabka.tttask.model.UpdateTask;
+import ru.jabka.tttask.model.UpdatedTask;
 import ru.jabka.tttask.repository.mapper.TaskMapper;
 
+import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
 
 @Repository
+@Timed(value = "tt.repository.query", histogram = true)
 @RequiredArgsConstructor
 public class TaskRepository {
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final TaskMapper taskMapper;
 
+    /**
+     * Короче трёх символов в строке нет ни одной триграммы, и индекс по названию не помогает.
+     */
+    private static final int TRIGRAM_MIN_LENGTH = 3;
+
     private static final String INSERT = """
             INSERT INTO tt.task (title, description, status, dead_line, author, assignee)
             VALUES (:title, :description, :status, :dead_line, :author, :assignee)
             RETURNING *
             """;
 
+    private static final String INSERT_BATCH = """
+            INSERT INTO tt.task (title, description, status, dead_line, author, assignee)
+            VALUES (:title, :description, :status, :dead_line, :author, :assignee)
+            """;
+
+    private static final String[] GENERATED_COLUMNS = {"id", "author", "created_at", "updated_at", "version"};
+
     private static final String GET_BY_ID = """
             SELECT t.*
             FROM tt.task t
-            JOIN tt.status s ON s.id = t.status
             WHERE t.id = :id
-              AND s.name <> 'DELETED'
-            """;
+              AND t.status <> %d
+            """.formatted(Status.DELETED.getId());
 
-    private static final String EXISTS_ACTIVE_TASKS_BY_ASSIGNEE = """
-            SELECT EXISTS (
-                SELECT 1
-                FROM tt.task t
-                JOIN tt.status s ON s.id = t.status
-                WHERE t.assignee = :id
-                  AND s.name NOT IN ('DELETED', 'DONE')
-            ) AS has_active_tasks
+    private static final String UPDATE = """
+            WITH previous AS (SELECT id, status
+                              FROM tt.task
+                              WHERE id = :id
+                              FOR NO KEY UPDATE)
+            UPDATE tt.task t
+            SET %s, version = t.version + 1, updated_at = CURRENT_TIMESTAMP
+            FROM previous p
+            WHERE p.id = t.id
+              AND %s
+            RETURNING t.*, p.status AS previous_status
             """;
 
-    private static final String UPDATE = """
+    private static final String UPDATE_BATCH = """
             UPDATE tt.task
-            SET title = :title, description = :description, dead_line = :dead_line, assignee = :assignee, status = :status, updated_at = CURRENT_TIMESTAMP
+            SET title = :title, description = :description, dead_line = :dead_line, assignee = :assignee, status = :status,
+                version = version + 1, updated_at = CURRENT_TIMESTAMP
             WHERE id = :id
-            RETURNING *
+            """;
+
+    private static final String GET_ALL_BY_IDS_FOR_UPDATE = """
+            SELECT t.*
+            FROM tt.task t
+            WHERE t.id IN (:ids)
+              AND t.status <> %d
+            ORDER BY t.id
+            FOR UPDATE
+            """.formatted(Status.DELETED.getId());
+
+    private static final String GET_VERSIONS_BY_FILTER = """
+            SELECT t.id, t.version
+            FROM tt.task t
+            WHERE %s
+            ORDER BY t.id
+            LIMIT :limit
             """;
 
     private static final String GET_BY_FILTER = """
-            SELECT *
+            SELECT t.*
             FROM tt.task t
-            JOIN tt.status s ON s.id = t.status
-            WHERE s.name <> 'DELETED'
-              AND (
-                  (:status IS NULL OR t.status = :status)
-                  AND
-                  (:assignee IS NULL OR t.assignee = :assignee)
-              )
+            WHERE %s
+            ORDER BY t.id
+            LIMIT :limit
+            """;
+
+    private static final String GET_ACTIVE_BY_DEAD_LINE = """
+            SELECT t.*
+            FROM tt.task t
+            WHERE %s
+            ORDER BY t.dead_line, t.id
+            LIMIT :limit
+            """;
+
+    private static final String SEARCH = """
+            SELECT *
+            FROM (SELECT t.*,
+                         (ts_rank(tt.task_search_vector(t.title, t.description), websearch_to_tsquery('russian', :text))
+                             + similarity(t.title, :text))::REAL AS rank
+                  FROM tt.task t
+                  WHERE %s) s
+            %s
+            ORDER BY s.rank DESC, s.id
+            LIMIT :limit
             """;
 
     public Task insert(final Task task) {
         return jdbcTemplate.queryForObject(INSERT, taskToSql(task), taskMapper);
     }
 
+    /**
+     * Вставляет задачи одним JDBC-пакетом, результат соответствует порядку {@code tasks}.
+     */
+    public List<Task> insertAll(final List<Task> tasks) {
+        return batchUpdate(INSERT_BATCH, tasks);
+    }
+
     public Task getById(final Long id) {
         try {
             return jdbcTemplate.queryForObject(GET_BY_ID, new MapSqlParameterSource("id", id), taskMapper);
@@ -73,18 +146,178 @@ public class TaskRepository {
         }
     }
 
-    public boolean existsActiveTasksByAssignee(final Long assigneeId) {
-        return jdbcTemplate.queryForObject(EXISTS_ACTIVE_TASKS_BY_ASSIGNEE, new MapSqlParameterSource("id", assigneeId), Boolean.class);
+    /**
+     * Частичное обновление одним запросом: меняются только переданные поля, и только если
+     * версия совпадает с ожидаемой, текущий статус допускает переход и хотя бы одно поле
+     * действительно меняется. Пустой результат - задача не найдена, условие не выполнено
+     * или изменений нет; тогда версия и {@code updated_at} не меняются. Статус до изменения
+     * читается под блокировкой строки, которую берёт и сам UPDATE.
+     */
+    public Optional<UpdatedTask> update(final UpdateTask updateTask, final Set<Status> allowedFrom) {
+        StringJoiner set = new StringJoiner(", ");
+        StringJoiner changed = new StringJoiner(" OR ", "(", ")");
+        MapSqlParameterSource params = new MapSqlParameterSource("id", updateTask.id());
+        setIfPresent(set, changed, params, "title", updateTask.title(), Types.VARCHAR);
+        setIfPresent(set, changed, params, "description", updateTask.description(), Types.VARCHAR);
+        setIfPresent(set, changed, params, "dead_line", updateTask.deadLine(), Types.DATE);
+        setIfPresent(set, changed, params, "assignee", updateTask.assignee(), Types.INTEGER);
+        Long status = updateTask.status() == null ? null : updateTask.status().getId();
+        setIfPresent(set, changed, params, "status", status, Types.INTEGER);
+        if (set.length() == 0) {
+            return Optional.empty();
+        }
+        StringJoiner where = new StringJoiner(" AND ")
+                .add("t.id = :id")
+                .add("t.status <> " + Status.DELETED.getId())
+                .add(changed.toString());
+        if (updateTask.version() != null) {
+            where.add("t.version = :version");
+            params.addValue("version", updateTask.version());
+        }
+        if (status != null) {
+            where.add(allowedFrom.isEmpty() ? "t.status = :status" : "(t.status = :status OR t.status IN (:allowed_from))");
+            params.addValue("allowed_from", allowedFrom.stream().map(Status::getId).toList());
+        }
+        return jdbcTemplate.query(UPDATE.formatted(set, where), params, (rs, rowNum) ->
+                new UpdatedTask(taskMapper.mapRow(rs, rowNum), Status.byId(rs.getLong("previous_status")))).stream().findFirst();
+    }
+
+    /**
+     * Блокирует задачи в порядке id, чтобы параллельные пакетные обновления
+     * не захватывали строки встречно и не приводили к взаимоблокировке.
+     */
+    public List<Task> getAllByIdsForUpdate(final Collection<Long> ids) {
+        return jdbcTemplate.query(GET_ALL_BY_IDS_FOR_UPDATE, new MapSqlParameterSource("ids", ids), taskMapper);
+    }
+
+    /**
+     * Обновляет задачи одним JDBC-пакетом, результат соответствует порядку {@code tasks}.
+     */
+    public List<Task> updateAll(final List<Task> tasks) {
+        return batchUpdate(UPDATE_BATCH, tasks);
+    }
+
+    public List<Task> getByFilter(final TaskFilter filter, final Long afterId, final int limit) {
+        TaskFilterSql sql = TaskFilterSql.of(filter)
+                .and("t.id > :after_id", "after_id", afterId, Types.BIGINT);
+        return jdbcTemplate.query(GET_BY_FILTER.formatted(sql.where()), sql.params()
+                .addValue("limit", limit), taskMapper);
+    }
+
+    /**
+     * Те же строки, что и {@link #getByFilter}, но только id и версии - для ETag страницы.
+     */
+    public List<TaskVersion> getVersionsByFilter(final TaskFilter filter, final Long afterId, final int limit) {
+        TaskFilterSql sql = TaskFilterSql.of(filter)
+                .and("t.id > :after_id", "after_id", afterId, Types.BIGINT);
+        return jdbcTemplate.query(GET_VERSIONS_BY_FILTER.formatted(sql.where()), sql.params()
+                .addValue("limit", limit), (rs, rowNum) -> new TaskVersion(rs.getLong("id"), rs.getInt("version")));
+    }
+
+    /**
+     * Активные задачи (TO_DO и IN_PROGRESS) со сроком исполнения в границах {@code from..to} включительно,
+     * в порядке срока, затем id, начиная после пары {@code afterDeadLine, afterId}. Незаданные границы и
+     * исполнитель не участвуют в запросе; выборку обслуживают частичные индексы {@code task_active_*dead_line_idx}.
+     */
+    public List<Task> getActiveByDeadLine(final LocalDate from,
+                                          final LocalDate to,
+                                          final Long assignee,
+                                          final LocalDate afterDeadLine,
+                                          final Long afterId,
+                                          final int limit) {
+        StringJoiner where = new StringJoiner(" AND ")
+                .add("t.status IN (" + Status.TO_DO.getId() + ", " + Status.IN_PROGRESS.getId() + ")");
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        if (assignee != null) {
+            where.add("t.assignee = :assignee");
+            params.addValue("assignee", assignee, Types.INTEGER);
+        }
+        if (from != null) {
+            where.add("t.dead_line >= :from");
+            params.addValue("from", from, Types.DATE);
+        }
+        if (to != null) {
+            where.add("t.dead_line <= :to");
+            params.addValue("to", to, Types.DATE);
+        }
+        if (afterId != null) {
+            where.add("(t.dead_line, t.id) > (:after_dead_line, :after_id)");
+            params.addValue("after_dead_line", afterDeadLine, Types.DATE)
+                    .addValue("after_id", afterId, Types.BIGINT);
+        }
+        return jdbcTemplate.query(GET_ACTIVE_BY_DEAD_LINE.formatted(where), params, taskMapper);
+    }
+
+    /**
+     * Поиск по словам в названии и описании (индекс {@code task_search_idx}) и по подстроке названия
+     * (триграммный {@code task_title_trgm_idx}) вместе с критериями фильтра. Сортировка по релевантности,
+     * затем по id; страница продолжается после пары {@code afterRank, afterId}.
+     */
+    public List<TaskSearchHit> search(final String text,
+                                      final TaskFilter filter,
+                                      final Float afterRank,
+                                      final Long afterId,
+                                      final int limit) {
+        boolean byTitle = text.length() >= TRIGRAM_MIN_LENGTH;
+        String match = "tt.task_search_vector(t.title, t.description) @@ websearch_to_tsquery('russian', :text)";
+        TaskFilterSql sql = TaskFilterSql.of(filter)
+                .and(byTitle ? "(" + match + " OR t.title ILIKE :pattern)" : match, "text", text, Types.VARCHAR);
+        MapSqlParameterSource params = sql.params()
+                .addValue("limit", limit);
+        if (byTitle) {
+            params.addValue("pattern", "%" + escapeLike(text) + "%", Types.VARCHAR);
+        }
+        String after = "";
+        if (afterId != null) {
+            after = "WHERE s.rank < :after_rank OR (s.rank = :after_rank AND s.id > :after_id)";
+            params.addValue("after_rank", afterRank, Types.REAL)
+                    .addValue("after_id", afterId, Types.BIGINT);
+        }
+        return jdbcTemplate.query(SEARCH.formatted(sql.where(), after), params,
+                (rs, rowNum) -> new TaskSearchHit(taskMapper.mapRow(rs, rowNum), rs.getFloat("rank")));
+    }
+
+    private static String escapeLike(final String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
-    public Task update(final Task task) {
-        return jdbcTemplate.queryForObject(UPDATE, taskToSql(task), taskMapper);
+    private void setIfPresent(final StringJoiner set,
+                              final StringJoiner changed,
+                              final MapSqlParameterSource params,
+                              final String column,
+                              final Object value,
+                              final int sqlType) {
+        if (value != null) {
+            set.add(column + " = :" + column);
+            changed.add("t." + column + " IS DISTINCT FROM :" + column);
+            params.addValue(column, value, sqlType);
+        }
     }
 
-    public List<Task> getByFilter(final Long status, final Long assignee) {
-        return jdbcTemplate.query(GET_BY_FILTER, new MapSqlParameterSource()
-                .addValue("status", status, Types.INTEGER)
-                .addValue("assignee", assignee, Types.INTEGER), taskMapper);
+    private List<Task> batchUpdate(final String sql, final List<Task> tasks) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(sql, tasks.stream()
+                .map(this::taskToSql)
+                .toArray(SqlParameterSource[]::new), keyHolder, GENERATED_COLUMNS);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Task> result = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            Map<String, Object> generated = keys.get(i);
+            result.add(Task.builder()
+                    .id(((Number) generated.get("id")).longValue())
+                    .title(task.title())
+                    .description(task.description())
+                    .status(task.status())
+                    .deadLine(task.deadLine())
+                    .assignee(task.assignee())
+                    .author(((Number) generated.get("author")).longValue())
+                    .createdAt(((Timestamp) generated.get("created_at")).toLocalDateTime())
+                    .updatedAt(((Timestamp) generated.get("updated_at")).toLocalDateTime())
+                    .version(((Number) generated.get("version")).intValue())
+                    .build());
+        }
+        return result;
     }
 
     private MapSqlParameterSource taskToSql(Task task) {
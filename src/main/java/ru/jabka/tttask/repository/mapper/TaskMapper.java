@@ -25,6 +25,7 @@ public class TaskMapper implements RowMapper<Task> {
                 .author(rs.getLong("author"))
                 .createdAt(rs.getObject("created_at", Timestamp.class).toLocalDateTime())
                 .updatedAt(rs.getObject("updated_at", Timestamp.class).toLocalDateTime())
+                .version(rs.getInt("version"))
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package ru.jabka.tttask.routing;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.time.Duration;
+
+/**
+ * Закрепление чтения за основной базой в пределах HTTP-запроса. Запрос закреплён, если клиент
+ * недавно писал (cookie {@link #COOKIE} со временем окончания окна) или уже писал в этом запросе.
+ * Первая запись в запросе продлевает окно у клиента.
+ */
+public final class ReadYourWrites {
+
+    static final String COOKIE = "tt-primary-until";
+
+    private static final ThreadLocal<ReadYourWrites> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletResponse response;
+    private final Duration window;
+    private boolean pinned;
+    private boolean written;
+
+    private ReadYourWrites(final HttpServletResponse response, final Duration window, final boolean pinned) {
+        this.response = response;
+        this.window = window;
+        this.pinned = pinned;
+    }
+
+    static ReadYourWrites start(final HttpServletResponse response, final Duration window, final boolean pinned) {
+        ReadYourWrites current = new ReadYourWrites(response, window, pinned);
+        CURRENT.set(current);
+        return current;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static boolean isPinned() {
+        ReadYourWrites current = CURRENT.get();
+        return current != null && current.pinned;
+    }
+
+    /**
+     * Отмечает зафиксированную запись в текущем запросе; вне HTTP-запроса ничего не делает.
+     */
+    static void wrote() {
+        ReadYourWrites current = CURRENT.get();
+        if (current == null || current.written) {
+            return;
+        }
+        current.written = true;
+        current.pinned = true;
+        if (!current.response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + current.window.toMillis()));
+            cookie.setMaxAge((int) current.window.toSeconds());
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            current.response.addCookie(cookie);
+        }
+    }
+}
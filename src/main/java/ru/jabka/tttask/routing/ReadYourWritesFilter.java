@@ -0,0 +1,60 @@
+package ru.jabka.tttask.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.jabka.tttask.configuration.ReplicaRoutingProperties;
+
+import java.io.IOException;
+
+/**
+ * Определяет по cookie, писал ли клиент в пределах окна {@code app.replica-routing.read-your-writes},
+ * и на время запроса закрепляет его чтение за основной базой, см. {@link ReadYourWrites}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.replica-routing", name = "enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReplicaRoutingProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return properties.getReadYourWrites().isZero();
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        ReadYourWrites.start(response, properties.getReadYourWrites(), recentlyWrote(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private boolean recentlyWrote(final HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (ReadYourWrites.COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
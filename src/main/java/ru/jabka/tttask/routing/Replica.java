@@ -0,0 +1,60 @@
+package ru.jabka.tttask.routing;
+
+import javax.sql.DataSource;
+
+/**
+ * Реплика и её последнее известное состояние. До первой успешной проверки реплика не обслуживает чтение.
+ */
+public class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean checked;
+    private volatile boolean healthy;
+    private volatile double lagBytes = Double.NaN;
+    private volatile String replayLsn;
+
+    public Replica(final String name, final DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public double lagBytes() {
+        return lagBytes;
+    }
+
+    String replayLsn() {
+        return replayLsn;
+    }
+
+    /**
+     * Оставляет прежнюю позицию применённого WAL.
+     */
+    boolean update(final boolean healthy, final double lagBytes) {
+        return update(healthy, lagBytes, replayLsn);
+    }
+
+    /**
+     * @return первая ли это проверка или изменилось ли состояние
+     */
+    boolean update(final boolean healthy, final double lagBytes, final String replayLsn) {
+        this.lagBytes = lagBytes;
+        this.replayLsn = replayLsn;
+        boolean changed = !checked || this.healthy != healthy;
+        this.checked = true;
+        this.healthy = healthy;
+        return changed;
+    }
+}
@@ -0,0 +1,113 @@
+package ru.jabka.tttask.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.jabka.tttask.configuration.ReplicaRoutingProperties;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Проверяет доступность и отставание реплик. Отставание - сколько байт WAL основной базы, записанного
+ * до проверки, реплика ещё не применила; время с последней применённой транзакции не подходит, потому что
+ * после простоя основной базы оно велико и у догнавшей реплики. Реплика, которая отстаёт две проверки
+ * подряд и за это время ничего не применила, потеряла связь с основной базой и выбывает из чтения
+ * при любом отставании.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(prefix = "app.replica-routing", name = "enabled", havingValue = "true")
+public class ReplicaHealthChecker {
+
+    private static final String PRIMARY_LSN = """
+            SELECT pg_current_wal_lsn()::TEXT
+            """;
+
+    private static final String LAG = """
+            SELECT pg_last_wal_replay_lsn()::TEXT AS replay_lsn,
+                   CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       ELSE GREATEST(pg_wal_lsn_diff(CAST(? AS pg_lsn), pg_last_wal_replay_lsn()), 0)
+                   END AS lag_bytes
+            """;
+
+    private final ReplicaDataSource replicaDataSource;
+    private final ReplicaRoutingProperties properties;
+
+    public ReplicaHealthChecker(final ReplicaDataSource replicaDataSource,
+                                final ReplicaRoutingProperties properties,
+                                final MeterRegistry meterRegistry) {
+        this.replicaDataSource = replicaDataSource;
+        this.properties = properties;
+        for (Replica replica : replicaDataSource.getReplicas()) {
+            Gauge.builder("tt.db.replica.lag", replica, Replica::lagBytes)
+                    .tag("replica", replica.name())
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("tt.db.replica.healthy", replica, x -> x.isHealthy() ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "#{@replicaRoutingProperties.healthCheckInterval.toMillis()}")
+    public void check() {
+        String primaryLsn;
+        try {
+            primaryLsn = jdbcTemplate(replicaDataSource.getPrimary()).queryForObject(PRIMARY_LSN, String.class);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось прочитать позицию WAL основной базы: {}", e.getMessage());
+            primaryLsn = null;
+        }
+        for (Replica replica : replicaDataSource.getReplicas()) {
+            check(replica, primaryLsn);
+        }
+    }
+
+    private void check(final Replica replica, final String primaryLsn) {
+        if (primaryLsn == null) {
+            if (replica.update(false, Double.NaN)) {
+                log.warn("Реплика {} исключена из чтения: отставание не определено", replica.name());
+            }
+            return;
+        }
+        try {
+            Position position = jdbcTemplate(replica.dataSource()).queryForObject(LAG, (rs, rowNum) -> {
+                BigDecimal lag = rs.getBigDecimal("lag_bytes");
+                return new Position(rs.getString("replay_lsn"), lag == null ? Double.NaN : lag.doubleValue());
+            }, primaryLsn);
+            double lagBytes = position.lagBytes();
+            boolean stalled = lagBytes > 0 && replica.lagBytes() > 0
+                    && Objects.equals(position.replayLsn(), replica.replayLsn());
+            boolean healthy = !stalled && lagBytes <= properties.getMaxLag().toBytes();
+            if (replica.update(healthy, lagBytes, position.replayLsn())) {
+                if (healthy) {
+                    log.info("Реплика {} обслуживает чтение, отставание {} байт", replica.name(), lagBytes);
+                } else if (stalled) {
+                    log.warn("Реплика {} исключена из чтения: не применяет WAL, отставание {} байт", replica.name(), lagBytes);
+                } else {
+                    log.warn("Реплика {} исключена из чтения: отставание {} байт", replica.name(), lagBytes);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (replica.update(false, Double.NaN)) {
+                log.warn("Реплика {} исключена из чтения: {}", replica.name(), e.getMessage());
+            }
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate(final DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout((int) Math.max(1, properties.getHealthCheckInterval().toSeconds()));
+        return jdbcTemplate;
+    }
+
+    private record Position(String replayLsn, double lagBytes) {
+    }
+}
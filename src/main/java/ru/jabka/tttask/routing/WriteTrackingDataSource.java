@@ -0,0 +1,36 @@
+package ru.jabka.tttask.routing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Основная база для пишущих транзакций: фиксация транзакции без read-only, взявшей соединение,
+ * отмечается как запись для {@link ReadYourWrites}. Откаченная транзакция и чтение вне транзакции,
+ * например загрузка в кэш задач, записью не считаются.
+ */
+public class WriteTrackingDataSource extends DelegatingDataSource {
+
+    public WriteTrackingDataSource(final DataSource primary) {
+        super(primary);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ReadYourWrites.wrote();
+                }
+            });
+        }
+        return super.getConnection();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.jabka.tttask.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.jabka.tttask.configuration.AssigneeLoadProperties;
+import ru.jabka.tttask.repository.AssigneeLoadRepository;
+
+/**
+ * Сворачивает приращения счётчиков tt.assignee_load и сверяет счётчики с задачами, исправляя
+ * расхождения, например после ручной правки tt.task с отключёнными триггерами. Сверка идёт
+ * короткими транзакциями по диапазонам исполнителей; каждую операцию выполняет один узел кластера.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class AssigneeLoadReconciler {
+
+    private final AssigneeLoadRepository assigneeLoadRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AssigneeLoadProperties properties;
+
+    @Scheduled(fixedDelayString = "#{@assigneeLoadProperties.compactDelay.toMillis()}")
+    public void compact() {
+        try {
+            Integer moved;
+            do {
+                moved = transactionTemplate.execute(status -> compactBatch());
+            } while (moved != null && moved == properties.getBatchSize());
+        } catch (Exception e) {
+            log.error("Ошибка свёртки счётчиков активных задач исполнителей", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "#{@assigneeLoadProperties.reconcileDelay.toMillis()}",
+            fixedDelayString = "#{@assigneeLoadProperties.reconcileDelay.toMillis()}")
+    public void reconcile() {
+        try {
+            int repaired = 0;
+            long after = Long.MIN_VALUE;
+            do {
+                final long from = after;
+                Range range = transactionTemplate.execute(status -> reconcileRange(from));
+                if (range == null) {
+                    break;
+                }
+                repaired += range.repaired();
+                after = range.until();
+            } while (after != Long.MAX_VALUE);
+            if (repaired > 0) {
+                log.warn("Исправлено счётчиков активных задач исполнителей: {}", repaired);
+            }
+        } catch (Exception e) {
+            log.error("Ошибка сверки счётчиков активных задач исполнителей", e);
+        }
+    }
+
+    private int compactBatch() {
+        if (!assigneeLoadRepository.tryLockCompact()) {
+            return 0;
+        }
+        return assigneeLoadRepository.compact(properties.getBatchSize());
+    }
+
+    private Range reconcileRange(final long after) {
+        if (!assigneeLoadRepository.tryLockReconcile()) {
+            return null;
+        }
+        long until = assigneeLoadRepository.getReconcileBound(after, properties.getBatchSize());
+        return new Range(until, assigneeLoadRepository.reconcile(after, until));
+    }
+
+    private record Range(long until, int repaired) {
+    }
+}
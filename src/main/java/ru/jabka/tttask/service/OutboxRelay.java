@@ -0,0 +1,54 @@
+package ru.jabka.tttask.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.jabka.tttask.client.QueueClient;
+import ru.jabka.tttask.configuration.OutboxConfigurationProperties;
+import ru.jabka.tttask.model.history.OutboxEvent;
+import ru.jabka.tttask.repository.OutboxRepository;
+
+import java.util.List;
+
+/**
+ * Переносит события истории из tt.task_outbox в history-exchange.
+ * Запись в outbox выполняется в транзакции изменения задачи, поэтому в очередь
+ * попадают только зафиксированные изменения, а задержка брокера не влияет на запись.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final QueueClient queueClient;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxConfigurationProperties properties;
+
+    @Scheduled(fixedDelayString = "#{@outboxConfigurationProperties.relayDelay.toMillis()}")
+    public void relay() {
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == properties.getBatchSize());
+        } catch (Exception e) {
+            log.error("Ошибка отправки событий истории из outbox", e);
+        }
+    }
+
+    private int relayBatch() {
+        if (!outboxRepository.tryLockRelay()) {
+            return 0;
+        }
+        List<OutboxEvent> events = outboxRepository.getBatch(properties.getBatchSize());
+        if (events.isEmpty()) {
+            return 0;
+        }
+        queueClient.sendTaskHistories(events.stream().map(outboxRepository::readPayload).toList());
+        outboxRepository.delete(events.stream().map(OutboxEvent::id).toList());
+        return events.size();
+    }
+}
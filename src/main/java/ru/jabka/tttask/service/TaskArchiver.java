@@ -0,0 +1,54 @@
+package ru.jabka.tttask.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.jabka.tttask.configuration.TaskArchiveProperties;
+import ru.jabka.tttask.repository.TaskArchiveRepository;
+
+import java.util.List;
+
+/**
+ * Переносит удалённые и давно выполненные задачи из tt.task в tt.task_archive небольшими
+ * пакетами, каждый в своей транзакции, пока находятся кандидаты. Перенесённые задачи
+ * сбрасываются из кэша узлов после коммита пакета.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class TaskArchiver {
+
+    private final TaskArchiveRepository taskArchiveRepository;
+    private final TaskCache taskCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskArchiveProperties properties;
+
+    @Scheduled(initialDelayString = "#{@taskArchiveProperties.moveDelay.toMillis()}",
+            fixedDelayString = "#{@taskArchiveProperties.moveDelay.toMillis()}")
+    public void archive() {
+        int archived = 0;
+        try {
+            List<Long> moved;
+            do {
+                moved = transactionTemplate.execute(status -> moveBatch());
+                archived += moved == null ? 0 : moved.size();
+            } while (moved != null && moved.size() == properties.getBatchSize());
+        } catch (Exception e) {
+            log.error("Ошибка переноса задач в архив", e);
+        }
+        if (archived > 0) {
+            log.info("Перенесено задач в архив: {}", archived);
+        }
+    }
+
+    private List<Long> moveBatch() {
+        if (!taskArchiveRepository.tryLockArchive()) {
+            return List.of();
+        }
+        List<Long> moved = taskArchiveRepository.moveBatch(properties.getDoneRetention(), properties.getBatchSize());
+        taskCache.invalidateAfterCommit(moved);
+        return moved;
+    }
+}
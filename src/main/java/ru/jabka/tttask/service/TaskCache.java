@@ -0,0 +1,98 @@
+package ru.jabka.tttask.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.jabka.tttask.client.QueueClient;
+import ru.jabka.tttask.configuration.TaskCacheProperties;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskCacheInvalidation;
+import ru.jabka.tttask.repository.TaskRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Кэш задач по id на узле. Одновременные промахи по одному id ждут одну загрузку, которая
+ * выполняется в потоке первого вызова, а не внутри блокировки кэша. После коммита изменений
+ * запись сбрасывается локально и на остальных узлах через fanout-обменник.
+ */
+@Component
+public class TaskCache {
+
+    private final TaskRepository taskRepository;
+    private final QueueClient queueClient;
+    private final AsyncCache<Long, Task> cache;
+
+    public TaskCache(final TaskRepository taskRepository,
+                     final QueueClient queueClient,
+                     final TaskCacheProperties properties,
+                     final MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.queueClient = queueClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tasks");
+    }
+
+    public Task get(final Long id) {
+        CompletableFuture<Task> loading = new CompletableFuture<>();
+        CompletableFuture<Task> task = cache.get(id, (key, executor) -> loading);
+        if (task == loading) {
+            try {
+                loading.complete(taskRepository.getById(id));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+            }
+        }
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Сбрасывает задачи после коммита текущей транзакции, чтобы параллельное чтение
+     * не успело положить в кэш незакоммиченное состояние.
+     */
+    public void invalidateAfterCommit(final Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> invalidated = List.copyOf(ids);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateEverywhere(invalidated);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateEverywhere(invalidated);
+            }
+        });
+    }
+
+    @RabbitListener(queues = "#{taskCacheInvalidationQueue.name}")
+    public void onInvalidation(final TaskCacheInvalidation invalidation) {
+        cache.synchronous().invalidateAll(invalidation.ids());
+    }
+
+    private void invalidateEverywhere(final List<Long> ids) {
+        cache.synchronous().invalidateAll(ids);
+        queueClient.sendTaskCacheInvalidation(ids);
+    }
+}
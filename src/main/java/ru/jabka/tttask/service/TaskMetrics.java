@@ -0,0 +1,39 @@
+package ru.jabka.tttask.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.jabka.tttask.exception.ConflictException;
+import ru.jabka.tttask.model.Status;
+
+/**
+ * Бизнес-счётчики задач. Теги ограничены перечислениями и именами операций,
+ * поэтому число рядов метрик не зависит от данных.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskMetrics {
+
+    public static final String BAD_REQUEST = "bad_request";
+    public static final String CONFLICT = "conflict";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Записанная смена статуса, по целевому статусу.
+     */
+    public void statusChanged(final Status status) {
+        meterRegistry.counter("tt.task.status.transitions", "to", status.name()).increment();
+    }
+
+    /**
+     * Отклонённый запрос или элемент пакета; {@code operation} - имя метода API.
+     */
+    public void rejected(final String operation, final String reason) {
+        meterRegistry.counter("tt.task.rejections", "operation", operation, "reason", reason).increment();
+    }
+
+    public void rejected(final String operation, final RuntimeException e) {
+        rejected(operation, e instanceof ConflictException ? CONFLICT : BAD_REQUEST);
+    }
+}
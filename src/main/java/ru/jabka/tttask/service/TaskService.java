@@ -1,79 +1,466 @@
 package ru.jabka.tttask.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
-import ru.jabka.tttask.client.QueueClient;
 import ru.jabka.tttask.client.UserClient;
 import ru.jabka.tttask.exception.BadRequestException;
+import ru.jabka.tttask.exception.ConflictException;
+import ru.jabka.tttask.model.AssigneeLoad;
+import ru.jabka.tttask.model.BatchItem;
 import ru.jabka.tttask.model.Status;
 import ru.jabka.tttask.model.StatusTransition;
 import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskFilter;
+import ru.jabka.tttask.model.TaskPage;
 import ru.jabka.tttask.model.TaskRequest;
+import ru.jabka.tttask.model.TaskSearchHit;
+import ru.jabka.tttask.model.TaskVersion;
 import ru.jabka.tttask.model.UpdateTask;
+import ru.jabka.tttask.model.UpdatedTask;
 import ru.jabka.tttask.model.UserResponse;
 import ru.jabka.tttask.model.UserRole;
+import ru.jabka.tttask.model.history.TaskHistory;
+import ru.jabka.tttask.repository.AssigneeLoadRepository;
+import ru.jabka.tttask.repository.OutboxRepository;
+import ru.jabka.tttask.repository.TaskArchiveRepository;
+import ru.jabka.tttask.repository.TaskExportRepository;
 import ru.jabka.tttask.repository.TaskRepository;
+import ru.jabka.tttask.util.Cursor;
+import ru.jabka.tttask.util.ETags;
 import ru.jabka.tttask.util.HistoryWrapper;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "tt.task.service", histogram = true)
 public class TaskService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_FILTER_ASSIGNEES = 100;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LOAD_ASSIGNEES = 10_000;
+    private static final int MAX_SEARCH_LENGTH = 200;
+
     private final TaskRepository taskRepository;
+    private final TaskExportRepository taskExportRepository;
     private final UserClient userClient;
-    private final QueueClient queueClient;
+    private final OutboxRepository outboxRepository;
+    private final TaskCache taskCache;
+    private final AssigneeLoadRepository assigneeLoadRepository;
+    private final TaskMetrics taskMetrics;
+    private final TaskArchiveRepository taskArchiveRepository;
 
     @Transactional(rollbackFor = Throwable.class)
     public Task create(final TaskRequest taskRequest) {
         validateTaskRequest(taskRequest);
-        Task inserted = taskRepository.insert(Task.builder()
-                .title(taskRequest.title())
-                .description(taskRequest.description())
-                .status(Status.TO_DO)
-                .deadLine(taskRequest.deadLine())
-                .author(taskRequest.author())
-                .assignee(taskRequest.assignee())
-                .build());
-        queueClient.sendTaskHistory(HistoryWrapper.prepareMessage(inserted, inserted.author()));
+        Task inserted = taskRepository.insert(newTask(taskRequest));
+        outboxRepository.save(HistoryWrapper.prepareMessage(inserted, inserted.author()));
         return inserted;
     }
 
+    /**
+     * Создаёт задачи пакетом: участники всех задач проверяются одним запросом к user-service,
+     * задачи вставляются одним JDBC-пакетом. Задачи с ошибками валидации пропускаются,
+     * а ошибка возвращается в элементе с их индексом.
+     */
+    @Transactional(rollbackFor = Throwable.class)
+    public List<BatchItem<Task>> createAll(final List<TaskRequest> taskRequests) {
+        validateBatchSize(taskRequests);
+        List<BatchItem<Task>> results = new ArrayList<>(Collections.nCopies(taskRequests.size(), null));
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < taskRequests.size(); i++) {
+            try {
+                validateTaskFields(taskRequests.get(i));
+                validIndexes.add(i);
+            } catch (BadRequestException e) {
+                taskMetrics.rejected("createAll", e);
+                results.set(i, BatchItem.failure(i, e.getMessage()));
+            }
+        }
+        Set<Long> members = validIndexes.stream()
+                .map(taskRequests::get)
+                .flatMap(x -> Stream.of(x.author(), x.assignee()))
+                .collect(Collectors.toSet());
+        Set<Long> existingMembers = members.isEmpty() ? Set.of() : userClient.getAllByIds(members).stream()
+                .map(UserResponse::id)
+                .collect(Collectors.toSet());
+        List<Integer> insertIndexes = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        for (Integer i : validIndexes) {
+            TaskRequest taskRequest = taskRequests.get(i);
+            Optional<Long> missing = Stream.of(taskRequest.author(), taskRequest.assignee())
+                    .filter(x -> !existingMembers.contains(x))
+                    .findFirst();
+            if (missing.isPresent()) {
+                taskMetrics.rejected("createAll", TaskMetrics.BAD_REQUEST);
+                results.set(i, BatchItem.failure(i, String.format("Пользователь с id = %d не найден", missing.get())));
+                continue;
+            }
+            insertIndexes.add(i);
+            tasks.add(newTask(taskRequest));
+        }
+        if (!tasks.isEmpty()) {
+            List<Task> inserted = taskRepository.insertAll(tasks);
+            outboxRepository.saveAll(inserted.stream()
+                    .map(x -> HistoryWrapper.prepareMessage(x, x.author()))
+                    .toList());
+            for (int i = 0; i < inserted.size(); i++) {
+                results.set(insertIndexes.get(i), BatchItem.success(insertIndexes.get(i), inserted.get(i)));
+            }
+        }
+        return results;
+    }
+
     @Transactional(rollbackFor = Throwable.class)
     public Task update(final UpdateTask updateTask) {
         validateUpdateRequest(updateTask);
-        Task updates = applyUpdates(getById(updateTask.id()), updateTask);
-        Task task = taskRepository.update(updates);
-        queueClient.sendTaskHistory(HistoryWrapper.prepareMessage(task, updateTask.editor()));
+        Set<Status> allowedFrom = StatusTransition.allowedFrom(updateTask.status());
+        Optional<UpdatedTask> updated = taskRepository.update(updateTask, allowedFrom);
+        if (updated.isEmpty()) {
+            Task current = explainSkippedUpdate(updateTask);
+            if (requestedFieldsMatch(current, updateTask)) {
+                return current;
+            }
+            updated = taskRepository.update(updateTask, allowedFrom);
+            if (updated.isEmpty()) {
+                throw new ConflictException(String.format("Задача с id %d изменена параллельно, повторите запрос", updateTask.id()));
+            }
+        }
+        Task task = updated.get().task();
+        outboxRepository.save(HistoryWrapper.prepareMessage(task, updateTask.editor()));
+        taskCache.invalidateAfterCommit(List.of(updateTask.id()));
+        if (updated.get().previousStatus() != task.status()) {
+            taskMetrics.statusChanged(task.status());
+        }
         return task;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Условный UPDATE не изменил строку: задача не найдена, версия устарела, переход статуса
+     * недопустим, либо запрос ничего не меняет. Задача перечитывается уже после UPDATE, поэтому
+     * без ошибки возвращается текущая задача, которую вызывающий сверяет с запросом.
+     */
+    private Task explainSkippedUpdate(final UpdateTask updateTask) {
+        Task current = taskRepository.getById(updateTask.id());
+        validateVersion(current, updateTask);
+        ofNullable(updateTask.status()).ifPresent(x -> validateStatusTransition(current.status(), x));
+        return current;
+    }
+
+    /**
+     * Запрос ничего не меняет, только если каждое переданное поле уже совпадает с задачей;
+     * иначе задачу изменили между UPDATE и перечитыванием.
+     */
+    private boolean requestedFieldsMatch(final Task current, final UpdateTask updateTask) {
+        return (updateTask.title() == null || updateTask.title().equals(current.title()))
+                && (updateTask.description() == null || updateTask.description().equals(current.description()))
+                && (updateTask.deadLine() == null || updateTask.deadLine().equals(current.deadLine()))
+                && (updateTask.assignee() == null || updateTask.assignee().equals(current.assignee()))
+                && (updateTask.status() == null || updateTask.status() == current.status());
+    }
+
+    /**
+     * Применяет пакет изменений в одной транзакции: редакторы и новые исполнители проверяются
+     * одним запросом к user-service, задачи читаются и блокируются одним запросом в порядке id,
+     * переходы статусов проверяются в памяти, запись идёт одним JDBC-пакетом.
+     * Изменения с ошибками пропускаются, а ошибка возвращается в элементе с их индексом;
+     * изменения, которые ничего не меняют, не записываются.
+     */
+    @Transactional(rollbackFor = Throwable.class)
+    public List<BatchItem<Task>> updateAll(final List<UpdateTask> updateTasks) {
+        validateBatchSize(updateTasks);
+        List<BatchItem<Task>> results = new ArrayList<>(Collections.nCopies(updateTasks.size(), null));
+        List<Integer> validIndexes = new ArrayList<>();
+        Set<Long> taskIds = new HashSet<>();
+        for (int i = 0; i < updateTasks.size(); i++) {
+            try {
+                UpdateTask updateTask = updateTasks.get(i);
+                validateUpdateFields(updateTask);
+                if (!taskIds.add(updateTask.id())) {
+                    throw new BadRequestException(String.format("Задача с id %d указана в пакете несколько раз", updateTask.id()));
+                }
+                validIndexes.add(i);
+            } catch (BadRequestException e) {
+                taskMetrics.rejected("updateAll", e);
+                results.set(i, BatchItem.failure(i, e.getMessage()));
+            }
+        }
+        if (validIndexes.isEmpty()) {
+            return results;
+        }
+        Set<Long> members = validIndexes.stream()
+                .map(updateTasks::get)
+                .flatMap(x -> Stream.of(x.editor(), x.assignee()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, UserResponse> users = userClient.getAllByIds(members).stream()
+                .collect(Collectors.toMap(UserResponse::id, Function.identity(), (x, y) -> x));
+        Map<Long, Task> tasks = taskRepository.getAllByIdsForUpdate(taskIds).stream()
+                .collect(Collectors.toMap(Task::id, Function.identity()));
+        List<Integer> updatedIndexes = new ArrayList<>();
+        List<Task> changedTasks = new ArrayList<>();
+        for (Integer i : validIndexes) {
+            UpdateTask updateTask = updateTasks.get(i);
+            try {
+                validateEditor(updateTask, users);
+                Task existedTask = ofNullable(tasks.get(updateTask.id()))
+                        .orElseThrow(() -> new BadRequestException(String.format("Задача с id %d не найдена", updateTask.id())));
+                validateVersion(existedTask, updateTask);
+                Task updates = applyUpdates(existedTask, updateTask);
+                if (sameData(existedTask, updates)) {
+                    results.set(i, BatchItem.success(i, existedTask));
+                    continue;
+                }
+                changedTasks.add(updates);
+                updatedIndexes.add(i);
+            } catch (BadRequestException | ConflictException e) {
+                taskMetrics.rejected("updateAll", e);
+                results.set(i, BatchItem.failure(i, e.getMessage()));
+            }
+        }
+        if (changedTasks.isEmpty()) {
+            return results;
+        }
+        List<Task> updated = taskRepository.updateAll(changedTasks);
+        List<TaskHistory> histories = new ArrayList<>(updated.size());
+        for (int i = 0; i < updated.size(); i++) {
+            int index = updatedIndexes.get(i);
+            if (tasks.get(updated.get(i).id()).status() != updated.get(i).status()) {
+                taskMetrics.statusChanged(updated.get(i).status());
+            }
+            results.set(index, BatchItem.success(index, updated.get(i)));
+            histories.add(HistoryWrapper.prepareMessage(updated.get(i), updateTasks.get(index).editor()));
+        }
+        outboxRepository.saveAll(histories);
+        taskCache.invalidateAfterCommit(updated.stream().map(Task::id).toList());
+        return results;
+    }
+
+    /**
+     * Читает задачу через кэш узла; без транзакции, чтобы попадание в кэш не занимало соединение.
+     */
     public Task getById(final Long id) {
-        return taskRepository.getById(id);
+        return taskCache.get(id);
+    }
+
+    /**
+     * Читает задачу, перенесённую в архив; в рабочей таблице её уже нет.
+     */
+    @Transactional(readOnly = true)
+    public Task getArchivedById(final Long id) {
+        return taskArchiveRepository.getById(id);
     }
 
     @Transactional(readOnly = true)
     public boolean existsActiveTasksByAssignee(final Long id) {
-        return taskRepository.existsActiveTasksByAssignee(id);
+        return assigneeLoadRepository.existsActive(id);
+    }
+
+    @Transactional(readOnly = true)
+    public AssigneeLoad getAssigneeLoad(final Long assignee) {
+        return assigneeLoadRepository.getByAssignee(assignee);
+    }
+
+    /**
+     * Счётчики активных задач для списка исполнителей одним запросом, без повторов, в порядке запроса.
+     */
+    @Transactional(readOnly = true)
+    public List<AssigneeLoad> getAssigneeLoads(final List<Long> assignees) {
+        if (assignees == null || assignees.isEmpty() || assignees.size() > MAX_LOAD_ASSIGNEES) {
+            throw new BadRequestException(String.format("Число исполнителей должно быть от 1 до %d", MAX_LOAD_ASSIGNEES));
+        }
+        if (assignees.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("id исполнителя не может быть пустым");
+        }
+        return assigneeLoadRepository.getByAssignees(new LinkedHashSet<>(assignees));
+    }
+
+    /**
+     * ETag страницы поиска, посчитанный по id и версиям строк без загрузки самих задач.
+     */
+    @Transactional(readOnly = true)
+    public String getPageTag(final TaskFilter filter, final Integer limit, final String cursor) {
+        int pageSize = validatePageSize(limit);
+        validateFilter(filter);
+        Long afterId = cursor == null ? 0L : Cursor.decodeId(cursor);
+        List<TaskVersion> versions = taskRepository.getVersionsByFilter(filter, afterId, pageSize + 1);
+        if (versions.size() <= pageSize) {
+            return ETags.ofPage(versions, false);
+        }
+        return ETags.ofPage(versions.subList(0, pageSize), true);
+    }
+
+    @Transactional(readOnly = true)
+    public TaskPage getAllByFilter(final TaskFilter filter, final Integer limit, final String cursor) {
+        int pageSize = validatePageSize(limit);
+        validateFilter(filter);
+        Long afterId = cursor == null ? 0L : Cursor.decodeId(cursor);
+        List<Task> tasks = taskRepository.getByFilter(filter, afterId, pageSize + 1);
+        if (tasks.size() <= pageSize) {
+            return new TaskPage(tasks, null);
+        }
+        List<Task> page = tasks.subList(0, pageSize);
+        return new TaskPage(page, Cursor.encode(page.get(pageSize - 1).id()));
+    }
+
+    /**
+     * Активные задачи со сроком исполнения в периоде {@code from..to} включительно, в порядке срока.
+     */
+    @Transactional(readOnly = true)
+    public TaskPage getDue(final LocalDate from, final LocalDate to, final Long assignee, final Integer limit, final String cursor) {
+        if (from == null || to == null) {
+            throw new BadRequestException("Укажите начало и окончание периода");
+        }
+        validateRange(from, to);
+        return getActiveByDeadLine(from, to, assignee, limit, cursor);
     }
 
+    /**
+     * Активные задачи, срок исполнения которых прошёл, в порядке срока.
+     */
     @Transactional(readOnly = true)
-    public Set<Task> getAllByFilter(final Status status, final Long assignee) {
-        ofNullable(assignee).ifPresent(x -> checkMembersExists(Collections.singleton(x)));
-        Long statusId = status == null ? null : status.getId();
-        return Set.copyOf(taskRepository.getByFilter(statusId, assignee));
+    public TaskPage getOverdue(final Long assignee, final Integer limit, final String cursor) {
+        return getActiveByDeadLine(null, LocalDate.now().minusDays(1), assignee, limit, cursor);
+    }
+
+    /**
+     * Поиск по тексту названия и описания вместе с критериями фильтра, по убыванию релевантности.
+     */
+    @Transactional(readOnly = true)
+    public TaskPage search(final String text, final TaskFilter filter, final Integer limit, final String cursor) {
+        String query = ofNullable(text).map(String::strip).orElse("");
+        if (query.isEmpty() || query.length() > MAX_SEARCH_LENGTH) {
+            throw new BadRequestException(String.format("Строка поиска должна содержать от 1 до %d символов", MAX_SEARCH_LENGTH));
+        }
+        int pageSize = validatePageSize(limit);
+        validateFilter(filter);
+        Float afterRank = null;
+        Long afterId = null;
+        if (cursor != null) {
+            String[] keys = Cursor.decode(cursor, 2);
+            try {
+                afterRank = Float.valueOf(keys[0]);
+                afterId = Long.valueOf(keys[1]);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Некорректный курсор страницы");
+            }
+        }
+        List<TaskSearchHit> hits = taskRepository.search(query, filter, afterRank, afterId, pageSize + 1);
+        if (hits.size() <= pageSize) {
+            return new TaskPage(hits.stream().map(TaskSearchHit::task).toList(), null);
+        }
+        TaskSearchHit last = hits.get(pageSize - 1);
+        return new TaskPage(hits.subList(0, pageSize).stream().map(TaskSearchHit::task).toList(),
+                Cursor.encode(last.rank(), last.task().id()));
+    }
+
+    @Transactional(readOnly = true)
+    public void exportByFilter(final TaskFilter filter, final Consumer<Task> consumer) {
+        taskExportRepository.streamByFilter(filter, consumer);
+    }
+
+    public void validateFilter(final TaskFilter filter) {
+        ofNullable(filter).orElseThrow(() -> new BadRequestException("Заполните критерии поиска"));
+        validateRange(filter.deadLineFrom(), filter.deadLineTo());
+        validateRange(filter.createdFrom(), filter.createdTo());
+        validateRange(filter.updatedFrom(), filter.updatedTo());
+        Set<Long> members = new HashSet<>();
+        ofNullable(filter.assignee()).ifPresent(members::addAll);
+        if (members.size() > MAX_FILTER_ASSIGNEES) {
+            throw new BadRequestException(String.format("Можно указать не более %d исполнителей", MAX_FILTER_ASSIGNEES));
+        }
+        ofNullable(filter.author()).ifPresent(members::add);
+        if (!members.isEmpty()) {
+            checkMembersExists(members);
+        }
+    }
+
+    private TaskPage getActiveByDeadLine(final LocalDate from,
+                                         final LocalDate to,
+                                         final Long assignee,
+                                         final Integer limit,
+                                         final String cursor) {
+        int pageSize = validatePageSize(limit);
+        LocalDate afterDeadLine = null;
+        Long afterId = null;
+        if (cursor != null) {
+            String[] keys = Cursor.decode(cursor, 2);
+            try {
+                afterDeadLine = LocalDate.parse(keys[0]);
+                afterId = Long.valueOf(keys[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BadRequestException("Некорректный курсор страницы");
+            }
+        }
+        List<Task> tasks = taskRepository.getActiveByDeadLine(from, to, assignee, afterDeadLine, afterId, pageSize + 1);
+        if (tasks.size() <= pageSize) {
+            return new TaskPage(tasks, null);
+        }
+        Task last = tasks.get(pageSize - 1);
+        return new TaskPage(tasks.subList(0, pageSize), Cursor.encode(last.deadLine(), last.id()));
+    }
+
+    private <T extends Comparable<? super T>> void validateRange(final T from, final T to) {
+        if (from != null && to != null && from.compareTo(to) > 0) {
+            throw new BadRequestException(String.format("Начало диапазона %s позже его окончания %s", from, to));
+        }
+    }
+
+    private int validatePageSize(final Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException(String.format("Размер страницы должен быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+        return limit;
+    }
+
+    private Task newTask(final TaskRequest taskRequest) {
+        return Task.builder()
+                .title(taskRequest.title())
+                .description(taskRequest.description())
+                .status(Status.TO_DO)
+                .deadLine(taskRequest.deadLine())
+                .author(taskRequest.author())
+                .assignee(taskRequest.assignee())
+                .build();
+    }
+
+    private void validateBatchSize(final List<?> items) {
+        if (items == null || items.isEmpty() || items.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(String.format("Размер пакета должен быть от 1 до %d", MAX_BATCH_SIZE));
+        }
     }
 
     private void validateTaskRequest(final TaskRequest taskRequest) {
+        validateTaskFields(taskRequest);
+        Set<Long> members = Set.of(taskRequest.author(), taskRequest.assignee());
+        checkMembersExists(members);
+    }
+
+    private void validateTaskFields(final TaskRequest taskRequest) {
         ofNullable(taskRequest).orElseThrow(() -> new BadRequestException("Заполните данные задачи"));
         if (!StringUtils.hasText(taskRequest.title())) {
             throw new BadRequestException("Заполните заголовок задачи");
@@ -86,8 +473,6 @@ public class TaskService {
         });
         ofNullable(taskRequest.author()).orElseThrow(() -> new BadRequestException("Заполните автора задачи"));
         ofNullable(taskRequest.assignee()).orElseThrow(() -> new BadRequestException("Заполните исполнителя задачи"));
-        Set<Long> members = Set.of(taskRequest.author(), taskRequest.assignee());
-        checkMembersExists(members);
     }
 
     private void validateUpdateRequest(final UpdateTask updateTask) {
@@ -108,13 +493,34 @@ public class TaskService {
         ofNullable(updateTask.deadLine()).ifPresent(this::validateDeadLine);
     }
 
+    private void validateUpdateFields(final UpdateTask updateTask) {
+        ofNullable(updateTask).orElseThrow(() -> new BadRequestException("Заполните данные для обновления"));
+        ofNullable(updateTask.id()).orElseThrow(() -> new BadRequestException("Не указан id задачи, которую необходимо обновить"));
+        ofNullable(updateTask.editor()).orElseThrow(() -> new BadRequestException("Не указан id пользователя, который редактирует задачу"));
+        ofNullable(updateTask.deadLine()).ifPresent(this::validateDeadLine);
+    }
+
+    private void validateEditor(final UpdateTask updateTask, final Map<Long, UserResponse> users) {
+        Long editorId = updateTask.editor();
+        UserResponse editor = ofNullable(users.get(editorId))
+                .orElseThrow(() -> new BadRequestException(String.format("Пользователь с id = %d, выполняющий редактирование, не найден", editorId)));
+        ofNullable(updateTask.assignee()).ifPresent(x -> {
+            if (!UserRole.MANAGER.equals(editor.role())) {
+                throw new BadRequestException(String.format("Роль пользователя id = %d, выполняющего редактирование, не соответствует роли %s", editorId, UserRole.MANAGER));
+            }
+            if (!users.containsKey(x)) {
+                throw new BadRequestException(String.format("Пользователь с id = %d не найден", x));
+            }
+        });
+    }
+
     private void validateDeadLine(LocalDate deadLine) {
         if (deadLine.isBefore(LocalDate.now())) {
             throw new BadRequestException("Срок исполнения не может быть в прошлом");
         }
     }
 
-    private Task applyUpdates(Task existedTask, final UpdateTask updateTask) {
+    Task applyUpdates(Task existedTask, final UpdateTask updateTask) {
         Task.TaskBuilder taskBuilder = Task.builder().id(existedTask.id());
         ofNullable(updateTask.title()).ifPresentOrElse(
                 taskBuilder::title,
@@ -136,12 +542,27 @@ public class TaskService {
         return taskBuilder.build();
     }
 
+    private void validateVersion(final Task current, final UpdateTask updateTask) {
+        if (updateTask.version() != null && !updateTask.version().equals(current.version())) {
+            throw new ConflictException(String.format("Задача с id %d изменена: текущая версия %d, ожидалась %d",
+                    current.id(), current.version(), updateTask.version()));
+        }
+    }
+
+    private boolean sameData(final Task existedTask, final Task updates) {
+        return Objects.equals(existedTask.title(), updates.title())
+                && Objects.equals(existedTask.description(), updates.description())
+                && Objects.equals(existedTask.deadLine(), updates.deadLine())
+                && Objects.equals(existedTask.assignee(), updates.assignee())
+                && existedTask.status() == updates.status();
+    }
+
     private void validateStatusTransition(Status currentStatus, Status requiredStatus) {
         if (currentStatus.equals(requiredStatus)) {
             return;
         }
         ofNullable(StatusTransition.findTransition(currentStatus, requiredStatus))
-                .orElseThrow(() -> new BadRequestException(String.format("Переход статуса из %s в %s невозможен", currentStatus, requiredStatus)));
+                .orElseThrow(() -> new ConflictException(String.format("Переход статуса из %s в %s невозможен", currentStatus, requiredStatus)));
     }
 
     private void checkMembersExists(final Set<Long> members) {
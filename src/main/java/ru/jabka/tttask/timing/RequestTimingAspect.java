@@ -0,0 +1,45 @@
+package ru.jabka.tttask.timing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Учитывает в {@link RequestTimings} время вызовов репозиториев, user-service и RabbitMQ.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "app.request-timing", name = "enabled", havingValue = "true")
+public class RequestTimingAspect {
+
+    @Around("execution(public * ru.jabka.tttask.repository.*Repository.*(..))")
+    public Object db(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, RequestTimings.Stage.DB);
+    }
+
+    @Around("execution(public * ru.jabka.tttask.client.UserClient.*(..))")
+    public Object user(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, RequestTimings.Stage.USER);
+    }
+
+    @Around("execution(public * ru.jabka.tttask.client.QueueClient.*(..))")
+    public Object queue(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, RequestTimings.Stage.QUEUE);
+    }
+
+    private Object measure(final ProceedingJoinPoint joinPoint, final RequestTimings.Stage stage) throws Throwable {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            return joinPoint.proceed();
+        }
+        boolean outer = timings.enter();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timings.exit(stage, outer, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.jabka.tttask.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.jabka.tttask.configuration.RequestTimingProperties;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Открывает {@link RequestTimings} на время запроса. Если тело не записано (например, 304),
+ * заголовок Server-Timing ставится здесь. Медленные запросы и выборка остальных пишутся в лог.
+ * Потоковые ответы не размечаются: тело пишется в другом потоке уже после выхода из фильтра.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "app.request-timing", name = "enabled", havingValue = "true")
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final RequestTimingProperties properties;
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimings.clear();
+            if (!request.isAsyncStarted()) {
+                if (!response.isCommitted() && !response.containsHeader(HEADER)) {
+                    response.setHeader(HEADER, timings.serverTiming());
+                }
+                logIfNeeded(request, response, timings);
+            }
+        }
+    }
+
+    private void logIfNeeded(final HttpServletRequest request, final HttpServletResponse response, final RequestTimings timings) {
+        boolean slow = timings.totalNanos() >= properties.getSlowThreshold().toNanos();
+        if (slow) {
+            log.warn("slow_request method={} uri={} status={} {}",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), timings.logLine());
+        } else if (properties.getSampleRate() > 0 && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate()) {
+            log.info("sampled_request method={} uri={} status={} {}",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), timings.logLine());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.jabka.tttask.timing;
+
+import java.util.Locale;
+
+/**
+ * Время, потраченное запросом на зависимости. Контекст живёт в потоке запроса от
+ * {@link RequestTimingFilter} до конца обработки; вне запроса {@link #current()} возвращает null.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] nanos = new long[Stage.values().length];
+    private final int[] calls = new int[Stage.values().length];
+    private int depth;
+
+    public enum Stage {
+        USER("user"),
+        DB("db"),
+        QUEUE("queue");
+
+        private final String metric;
+
+        Stage(final String metric) {
+            this.metric = metric;
+        }
+    }
+
+    static RequestTimings start() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Вложенные вызовы не учитываются отдельно, их время уже входит во внешний вызов.
+     */
+    boolean enter() {
+        return depth++ == 0;
+    }
+
+    void exit(final Stage stage, final boolean outer, final long elapsedNanos) {
+        depth--;
+        if (outer) {
+            nanos[stage.ordinal()] += elapsedNanos;
+            calls[stage.ordinal()]++;
+        }
+    }
+
+    long totalNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    /**
+     * Значение заголовка Server-Timing, например {@code user;dur=12.3, db;dur=4.1;desc="3", total;dur=20.0}.
+     */
+    String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            if (calls[stage.ordinal()] > 0) {
+                header.append(stage.metric).append(";dur=").append(millis(nanos[stage.ordinal()]))
+                        .append(";desc=\"").append(calls[stage.ordinal()]).append("\", ");
+            }
+        }
+        return header.append("total;dur=").append(millis(totalNanos())).toString();
+    }
+
+    /**
+     * Строка для лога в формате {@code key=value}.
+     */
+    String logLine() {
+        StringBuilder line = new StringBuilder("total_ms=").append(millis(totalNanos()));
+        for (Stage stage : Stage.values()) {
+            line.append(' ').append(stage.metric).append("_ms=").append(millis(nanos[stage.ordinal()]))
+                    .append(' ').append(stage.metric).append("_calls=").append(calls[stage.ordinal()]);
+        }
+        return line.toString();
+    }
+
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+}
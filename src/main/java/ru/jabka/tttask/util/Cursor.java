@@ -0,0 +1,47 @@
+package ru.jabka.tttask.util;
+
+import lombok.experimental.UtilityClass;
+import ru.jabka.tttask.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор keyset-пагинации: значения ключа сортировки последней отданной строки.
+ */
+@UtilityClass
+public class Cursor {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode(final Object... keys) {
+        StringBuilder builder = new StringBuilder();
+        for (Object key : keys) {
+            if (!builder.isEmpty()) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String[] decode(final String cursor, final int size) {
+        try {
+            String[] keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (keys.length != size) {
+                throw new IllegalArgumentException();
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Некорректный курсор страницы");
+        }
+    }
+
+    public Long decodeId(final String cursor) {
+        try {
+            return Long.valueOf(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Некорректный курсор страницы");
+        }
+    }
+}
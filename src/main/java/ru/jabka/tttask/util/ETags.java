@@ -0,0 +1,37 @@
+package ru.jabka.tttask.util;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.util.DigestUtils;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskPage;
+import ru.jabka.tttask.model.TaskVersion;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * ETag задач. Для задачи - id и версия строки, для страницы поиска - хэш пар id:version
+ * и признака следующей страницы, поэтому его можно посчитать и без загрузки самих задач.
+ */
+@UtilityClass
+public class ETags {
+
+    public String ofTask(final Task task) {
+        return task.id() + "-" + task.version();
+    }
+
+    public String ofPage(final TaskPage page) {
+        return ofPage(page.items().stream()
+                .map(x -> new TaskVersion(x.id(), x.version()))
+                .toList(), page.next() != null);
+    }
+
+    public String ofPage(final List<TaskVersion> items, final boolean hasNext) {
+        StringBuilder builder = new StringBuilder();
+        for (TaskVersion item : items) {
+            builder.append(item.id()).append(':').append(item.version()).append(',');
+        }
+        builder.append(hasNext);
+        return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,7 @@
+CREATE TABLE tt.task_outbox
+(
+    id         BIGSERIAL PRIMARY KEY,
+    task_id    INT   NOT NULL,
+    payload    JSONB NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,19 @@
+--liquibase formatted sql
+
+--changeset tt-task:task-assignee-status-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_assignee_status_idx ON tt.task (assignee, status, id) WHERE status <> 4;
+
+--changeset tt-task:task-status-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_status_idx ON tt.task (status, id) WHERE status <> 4;
+
+--changeset tt-task:task-author-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_author_idx ON tt.task (author, id) WHERE status <> 4;
+
+--changeset tt-task:task-dead-line-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_dead_line_idx ON tt.task (dead_line) WHERE status <> 4;
+
+--changeset tt-task:task-created-at-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_created_at_idx ON tt.task (created_at) WHERE status <> 4;
+
+--changeset tt-task:task-updated-at-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_updated_at_idx ON tt.task (updated_at) WHERE status <> 4;
@@ -0,0 +1,2 @@
+ALTER TABLE tt.task
+    ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,51 @@
+--liquibase formatted sql
+
+--changeset tt-task:assignee-load-table
+CREATE TABLE tt.assignee_load
+(
+    assignee   INT NOT NULL,
+    status     INT NOT NULL REFERENCES tt.status (id),
+    task_count INT NOT NULL,
+    PRIMARY KEY (assignee, status)
+);
+
+--changeset tt-task:assignee-load-function splitStatements:false
+CREATE FUNCTION tt.track_assignee_load() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.status IN (1, 2) THEN
+        UPDATE tt.assignee_load
+        SET task_count = task_count - 1
+        WHERE assignee = OLD.assignee
+          AND status = OLD.status;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.status IN (1, 2) THEN
+        INSERT INTO tt.assignee_load (assignee, status, task_count)
+        VALUES (NEW.assignee, NEW.status, 1)
+        ON CONFLICT (assignee, status) DO UPDATE SET task_count = tt.assignee_load.task_count + 1;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset tt-task:assignee-load-triggers
+LOCK TABLE tt.task IN SHARE ROW EXCLUSIVE MODE;
+
+CREATE TRIGGER task_assignee_load_insert_delete
+    AFTER INSERT OR DELETE
+    ON tt.task
+    FOR EACH ROW
+EXECUTE FUNCTION tt.track_assignee_load();
+
+CREATE TRIGGER task_assignee_load_update
+    AFTER UPDATE OF status, assignee
+    ON tt.task
+    FOR EACH ROW
+    WHEN (OLD.status IS DISTINCT FROM NEW.status OR OLD.assignee IS DISTINCT FROM NEW.assignee)
+EXECUTE FUNCTION tt.track_assignee_load();
+
+INSERT INTO tt.assignee_load (assignee, status, task_count)
+SELECT assignee, status, count(*)
+FROM tt.task
+WHERE status IN (1, 2)
+GROUP BY assignee, status;
@@ -0,0 +1,21 @@
+--liquibase formatted sql
+
+--changeset tt-task:pg-trgm-extension
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+--changeset tt-task:task-search-vector-function splitStatements:false
+CREATE FUNCTION tt.task_search_vector(title VARCHAR, description TEXT) RETURNS tsvector
+    LANGUAGE sql
+    IMMUTABLE
+    PARALLEL SAFE
+AS
+$$
+SELECT setweight(to_tsvector('russian'::regconfig, title), 'A')
+           || setweight(to_tsvector('russian'::regconfig, description), 'B')
+$$;
+
+--changeset tt-task:task-search-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_search_idx ON tt.task USING gin (tt.task_search_vector(title, description)) WHERE status <> 4;
+
+--changeset tt-task:task-title-trgm-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_title_trgm_idx ON tt.task USING gin (title gin_trgm_ops) WHERE status <> 4;
@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset tt-task:task-active-dead-line-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_active_dead_line_idx ON tt.task (dead_line) WHERE status IN (1, 2);
+
+--changeset tt-task:task-active-assignee-dead-line-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_active_assignee_dead_line_idx ON tt.task (assignee, dead_line) WHERE status IN (1, 2);
@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+--changeset tt-task:task-archive-table
+CREATE TABLE tt.task_archive
+(
+    id          INT PRIMARY KEY,
+    title       VARCHAR(64)              NOT NULL,
+    description TEXT                     NOT NULL,
+    status      INT                      NOT NULL REFERENCES tt.status (id),
+    dead_line   DATE                     NOT NULL,
+    assignee    INT                      NOT NULL,
+    author      INT                      NOT NULL,
+    created_at  TIMESTAMP WITH TIME ZONE,
+    updated_at  TIMESTAMP WITH TIME ZONE,
+    version     INT                      NOT NULL,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+--changeset tt-task:task-terminal-idx runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_terminal_idx ON tt.task (status, updated_at) WHERE status IN (3, 4);
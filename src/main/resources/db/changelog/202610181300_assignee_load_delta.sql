@@ -0,0 +1,28 @@
+--liquibase formatted sql
+
+--changeset tt-task:assignee-load-delta-table
+CREATE TABLE tt.assignee_load_delta
+(
+    id         BIGSERIAL PRIMARY KEY,
+    assignee   INT NOT NULL,
+    status     INT NOT NULL,
+    task_count INT NOT NULL
+);
+
+CREATE INDEX assignee_load_delta_assignee_idx ON tt.assignee_load_delta (assignee, status);
+
+--changeset tt-task:assignee-load-delta-function splitStatements:false
+CREATE OR REPLACE FUNCTION tt.track_assignee_load() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.status IN (1, 2) THEN
+        INSERT INTO tt.assignee_load_delta (assignee, status, task_count)
+        VALUES (OLD.assignee, OLD.status, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.status IN (1, 2) THEN
+        INSERT INTO tt.assignee_load_delta (assignee, status, task_count)
+        VALUES (NEW.assignee, NEW.status, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,39 @@
+package ru.jabka.tttask;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Встроенный PostgreSQL со схемой приложения на время тестового класса. Кластер создаётся
+ * с UTF-8 локалью, как в рабочей базе: в локали C полнотекстовый поиск и ILIKE не приводят
+ * кириллицу к нижнему регистру. {@link #dataSource} держит одно соединение, а отдельные
+ * соединения, например для параллельных транзакций, берутся из {@link #postgres}.
+ */
+public abstract class EmbeddedPostgresTest {
+
+    protected static EmbeddedPostgres postgres;
+    protected static SingleConnectionDataSource dataSource;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder()
+                .setLocaleConfig("locale", "C.UTF-8")
+                .start();
+        dataSource = new SingleConnectionDataSource(postgres.getPostgresDatabase().getConnection(), true);
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        dataSource.destroy();
+        postgres.close();
+    }
+}
@@ -0,0 +1,128 @@
+package ru.jabka.tttask.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import ru.jabka.tttask.configuration.ServiceConfiguration;
+import ru.jabka.tttask.model.UserResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Сравнивает обработку блокирующих запросов к медленному user-service пулом из 200 платформенных
+ * потоков (как у Tomcat по умолчанию) и виртуальным потоком на запрос.
+ * Запуск: {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmark {
+
+    private static final int REQUESTS = 3_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int CONNECTIONS = 1_000;
+    private static final Duration USER_SERVICE_LATENCY = Duration.ofMillis(500);
+
+    private Tomcat userService;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userService = new Tomcat();
+        userService.setBaseDir(Files.createTempDirectory("user-service-stub").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("maxConnections", String.valueOf(CONNECTIONS * 2));
+        connector.getProtocolHandler().setExecutor(new VirtualThreadExecutor("user-service-stub-"));
+        userService.setConnector(connector);
+        Context context = userService.addContext("", null);
+        Tomcat.addServlet(context, "users", new HttpServlet() {
+            @Override
+            protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+                try {
+                    Thread.sleep(USER_SERVICE_LATENCY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setContentType("application/json");
+                response.getWriter().write("[{\"id\":1,\"role\":\"USER\"}]");
+            }
+        });
+        context.addServletMappingDecoded("/api/v1/user", "users");
+        userService.start();
+
+        ServiceConfiguration configuration = new ServiceConfiguration();
+        ServiceConfiguration.Http http = new ServiceConfiguration.Http();
+        http.setMaxConnections(CONNECTIONS);
+        http.setMaxConnectionsPerRoute(CONNECTIONS);
+        http.setReadTimeout(Duration.ofSeconds(30));
+        http.setConnectionRequestTimeout(Duration.ofSeconds(30));
+        configuration.setHttp(http);
+        configuration.setUserServiceUrl("http://localhost:" + connector.getLocalPort());
+        restTemplate = configuration.userService(configuration.userServiceRequestFactory(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        userService.stop();
+        userService.destroy();
+    }
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        run("warmup", Executors.newVirtualThreadPerTaskExecutor(), REQUESTS / 10);
+        Result platform = run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), REQUESTS);
+        Result virtual = run("virtual", Executors.newVirtualThreadPerTaskExecutor(), REQUESTS);
+        System.out.printf("%nuser-service latency %d ms, %d concurrent requests, %d connections%n",
+                USER_SERVICE_LATENCY.toMillis(), REQUESTS, CONNECTIONS);
+        System.out.printf("%-10s %12s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms");
+        platform.print();
+        virtual.print();
+    }
+
+    private Result run(final String mode, final ExecutorService executor, final int requests) throws Exception {
+        long[] latencies = new long[requests];
+        List<Future<?>> futures = new ArrayList<>(requests);
+        long start = System.nanoTime();
+        try (executor) {
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                long submittedAt = System.nanoTime();
+                futures.add(executor.submit(() -> {
+                    restTemplate.getForObject("/api/v1/user?ids=" + index, UserResponse[].class);
+                    latencies[index] = System.nanoTime() - submittedAt;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(mode, requests * 1e9 / elapsed,
+                latencies[requests / 2], latencies[(int) (requests * 0.99)], latencies[requests - 1]);
+    }
+
+    private record Result(String mode, double throughput, long p50, long p99, long max) {
+
+        void print() {
+            System.out.printf("%-10s %12.0f %10.1f %10.1f %10.1f%n", mode, throughput, p50 / 1e6, p99 / 1e6, max / 1e6);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.jabka.tttask.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import ru.jabka.tttask.configuration.RabbitConfigurationProperties;
+import ru.jabka.tttask.model.TaskCacheInvalidation;
+import ru.jabka.tttask.model.history.TaskHistory;
+import ru.jabka.tttask.model.history.TaskHistoryEnvelope;
+
+import java.time.Duration;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class QueueClientTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations operations;
+
+    private RabbitConfigurationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RabbitConfigurationProperties();
+        properties.setExchange("history-exchange");
+        properties.setQueueTasks("history.tasks-queue");
+        properties.setCacheInvalidationExchange("task-cache-invalidation");
+        properties.getPublisher().setConfirmTimeout(Duration.ofMillis(100));
+        meterRegistry = new SimpleMeterRegistry();
+        Mockito.lenient().when(rabbitTemplate.invoke(Mockito.any()))
+                .thenAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+    }
+
+    @Test
+    void sendTaskHistories_success_confirmed() {
+        confirmAll(true);
+        List<TaskHistory> histories = List.of(history(1L), history(2L));
+        new QueueClient(rabbitTemplate, properties, meterRegistry).sendTaskHistories(histories);
+        Mockito.verify(operations).convertAndSend(Mockito.eq("history-exchange"), Mockito.eq("history.tasks-queue"),
+                Mockito.eq(histories.get(0)), Mockito.any(CorrelationData.class));
+        Mockito.verify(operations).convertAndSend(Mockito.eq("history-exchange"), Mockito.eq("history.tasks-queue"),
+                Mockito.eq(histories.get(1)), Mockito.any(CorrelationData.class));
+        Assertions.assertEquals(2, meterRegistry.counter("tt.history.published.events").count());
+    }
+
+    @Test
+    void sendTaskHistories_success_envelopes() {
+        confirmAll(true);
+        properties.getPublisher().setEnvelopeSize(2);
+        List<TaskHistory> histories = List.of(history(1L), history(2L), history(3L));
+        new QueueClient(rabbitTemplate, properties, meterRegistry).sendTaskHistories(histories);
+        ArgumentCaptor<Object> messages = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(operations, Mockito.times(2)).convertAndSend(Mockito.anyString(), Mockito.anyString(),
+                messages.capture(), Mockito.any(CorrelationData.class));
+        Assertions.assertEquals(List.of(
+                new TaskHistoryEnvelope(histories.subList(0, 2)),
+                new TaskHistoryEnvelope(histories.subList(2, 3))), messages.getAllValues());
+        Assertions.assertEquals(2, meterRegistry.counter("tt.history.published.messages").count());
+    }
+
+    @Test
+    void sendTaskCacheInvalidation_success() {
+        new QueueClient(rabbitTemplate, properties, meterRegistry).sendTaskCacheInvalidation(List.of(1L, 2L));
+        Mockito.verify(rabbitTemplate).convertAndSend("task-cache-invalidation", "", new TaskCacheInvalidation(List.of(1L, 2L)));
+    }
+
+    @Test
+    void sendTaskCacheInvalidation_error_swallowed() {
+        Mockito.doThrow(new AmqpConnectException(new RuntimeException("down")))
+                .when(rabbitTemplate).convertAndSend(Mockito.anyString(), Mockito.anyString(), Mockito.any(Object.class));
+        Assertions.assertDoesNotThrow(() -> new QueueClient(rabbitTemplate, properties, meterRegistry).sendTaskCacheInvalidation(List.of(1L)));
+    }
+
+    @Test
+    void sendTaskHistories_error_nack() {
+        confirmAll(false);
+        QueueClient queueClient = new QueueClient(rabbitTemplate, properties, meterRegistry);
+        Assertions.assertThrows(IllegalStateException.class, () -> queueClient.sendTaskHistories(List.of(history(1L))));
+        Assertions.assertEquals(1, meterRegistry.counter("tt.history.publish.failures", "reason", "nack").count());
+    }
+
+    @Test
+    void sendTaskHistories_error_confirmTimeout() {
+        QueueClient queueClient = new QueueClient(rabbitTemplate, properties, meterRegistry);
+        Assertions.assertThrows(IllegalStateException.class, () -> queueClient.sendTaskHistories(List.of(history(1L))));
+        Assertions.assertEquals(1, meterRegistry.counter("tt.history.publish.failures", "reason", "timeout").count());
+    }
+
+    @Test
+    void sendTaskHistories_error_backpressure() {
+        properties.getPublisher().setMaxInFlight(1);
+        properties.getPublisher().setBackpressureTimeout(Duration.ofMillis(10));
+        QueueClient queueClient = new QueueClient(rabbitTemplate, properties, meterRegistry);
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> queueClient.sendTaskHistories(List.of(history(1L), history(2L))));
+        Assertions.assertEquals(1, meterRegistry.counter("tt.history.publish.failures", "reason", "backpressure").count());
+    }
+
+    private void confirmAll(final boolean ack) {
+        Mockito.doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "rejected"));
+            return null;
+        }).when(operations).convertAndSend(Mockito.anyString(), Mockito.anyString(), Mockito.any(Object.class), Mockito.any(CorrelationData.class));
+    }
+
+    private TaskHistory history(final Long taskId) {
+        return new TaskHistory().setTaskId(taskId);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.jabka.tttask.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import ru.jabka.tttask.configuration.UserBatchProperties;
+import ru.jabka.tttask.configuration.UserCacheProperties;
+import ru.jabka.tttask.model.UserResponse;
+import ru.jabka.tttask.model.UserRole;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class UserClientTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private UserClient userClient;
+
+    @BeforeEach
+    void setUp() {
+        UserBatchProperties batchProperties = new UserBatchProperties();
+        batchProperties.setEnabled(false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        userClient = new UserClient(new UserRequestCoalescer(restTemplate, batchProperties, new SimpleAsyncTaskExecutor(), meterRegistry),
+                new UserCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    void getAllByIds_success_cached() {
+        UserResponse user = user(1L);
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=1", UserResponse[].class))
+                .thenReturn(new UserResponse[]{user});
+        Assertions.assertEquals(Set.of(user), userClient.getAllByIds(Set.of(1L)));
+        Assertions.assertEquals(Set.of(user), userClient.getAllByIds(Set.of(1L)));
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(Mockito.anyString(), Mockito.eq(UserResponse[].class));
+    }
+
+    @Test
+    void getAllByIds_success_onlyMissingIdsRequested() {
+        UserResponse first = user(1L);
+        UserResponse second = user(2L);
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=1", UserResponse[].class))
+                .thenReturn(new UserResponse[]{first});
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=2", UserResponse[].class))
+                .thenReturn(new UserResponse[]{second});
+        userClient.getAllByIds(Set.of(1L));
+        Assertions.assertEquals(Set.of(first, second), userClient.getAllByIds(Set.of(1L, 2L)));
+    }
+
+    @Test
+    void getAllByIds_success_notFoundCached() {
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=5", UserResponse[].class))
+                .thenReturn(new UserResponse[]{});
+        Assertions.assertEquals(Set.of(), userClient.getAllByIds(Set.of(5L)));
+        Assertions.assertEquals(Set.of(), userClient.getAllByIds(Set.of(5L)));
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(Mockito.anyString(), Mockito.eq(UserResponse[].class));
+    }
+
+    @Test
+    void getAllByIds_success_concurrentMissesShareOneRequest() throws Exception {
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UserResponse user = user(1L);
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=1", UserResponse[].class)).thenAnswer(invocation -> {
+            requested.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new UserResponse[]{user};
+        });
+        CompletableFuture<Set<UserResponse>> first = CompletableFuture.supplyAsync(() -> userClient.getAllByIds(Set.of(1L)));
+        Assertions.assertTrue(requested.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Set<UserResponse>> second = CompletableFuture.supplyAsync(() -> userClient.getAllByIds(Set.of(1L)));
+        release.countDown();
+        Assertions.assertEquals(Set.of(user), first.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Set.of(user), second.get(5, TimeUnit.SECONDS));
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(Mockito.anyString(), Mockito.eq(UserResponse[].class));
+    }
+
+    @Test
+    void getAllByIds_error_notCached() {
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=1", UserResponse[].class))
+                .thenThrow(new RestClientException("unavailable"))
+                .thenReturn(new UserResponse[]{user(1L)});
+        Assertions.assertThrows(RestClientException.class, () -> userClient.getAllByIds(Set.of(1L)));
+        Assertions.assertEquals(1, userClient.getAllByIds(Set.of(1L)).size());
+    }
+
+    private UserResponse user(final Long id) {
+        return UserResponse.builder()
+                .id(id)
+                .role(UserRole.USER)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.jabka.tttask.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import ru.jabka.tttask.configuration.UserBatchProperties;
+import ru.jabka.tttask.model.UserResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class UserRequestCoalescerTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private UserRequestCoalescer coalescer;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        coalescer.destroy();
+    }
+
+    @Test
+    void load_success_concurrentCallsShareOneRequest() throws Exception {
+        coalescer = coalescer(Duration.ofMillis(200), 100);
+        UserResponse first = UserResponse.builder().id(1L).build();
+        UserResponse second = UserResponse.builder().id(2L).build();
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=1&ids=2&ids=3", UserResponse[].class))
+                .thenReturn(new UserResponse[]{first, second});
+        CompletableFuture<Map<Long, Optional<UserResponse>>> firstCall = coalescer.load(Set.of(1L));
+        CompletableFuture<Map<Long, Optional<UserResponse>>> secondCall = coalescer.load(Set.of(2L, 3L));
+        Assertions.assertEquals(Map.of(1L, Optional.of(first)), firstCall.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Map.of(2L, Optional.of(second), 3L, Optional.empty()), secondCall.get(5, TimeUnit.SECONDS));
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(Mockito.anyString(), Mockito.eq(UserResponse[].class));
+        Assertions.assertEquals(3, meterRegistry.summary("tt.user.batch.size").totalAmount());
+        Assertions.assertEquals(1, meterRegistry.timer("tt.user.request", "outcome", "success").count());
+    }
+
+    @Test
+    void load_success_flushedWhenBatchIsFull() throws Exception {
+        coalescer = coalescer(Duration.ofMinutes(1), 2);
+        Mockito.when(restTemplate.getForObject("/api/v1/user?ids=1&ids=2", UserResponse[].class))
+                .thenReturn(new UserResponse[]{});
+        CompletableFuture<Map<Long, Optional<UserResponse>>> firstCall = coalescer.load(Set.of(1L));
+        CompletableFuture<Map<Long, Optional<UserResponse>>> secondCall = coalescer.load(Set.of(2L));
+        Assertions.assertEquals(Map.of(1L, Optional.empty()), firstCall.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Map.of(2L, Optional.empty()), secondCall.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void load_error_propagatedToAllCallers() {
+        coalescer = coalescer(Duration.ofMillis(50), 100);
+        Mockito.when(restTemplate.getForObject(Mockito.anyString(), Mockito.eq(UserResponse[].class)))
+                .thenThrow(new RestClientException("unavailable"));
+        CompletableFuture<Map<Long, Optional<UserResponse>>> firstCall = coalescer.load(Set.of(1L));
+        CompletableFuture<Map<Long, Optional<UserResponse>>> secondCall = coalescer.load(Set.of(2L));
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> firstCall.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(RestClientException.class, exception.getCause());
+        Assertions.assertThrows(ExecutionException.class, () -> secondCall.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, meterRegistry.timer("tt.user.request", "outcome", "error").count());
+    }
+
+    private UserRequestCoalescer coalescer(final Duration window, final int maxBatchSize) {
+        UserBatchProperties properties = new UserBatchProperties();
+        properties.setWindow(window);
+        properties.setMaxBatchSize(maxBatchSize);
+        meterRegistry = new SimpleMeterRegistry();
+        return new UserRequestCoalescer(restTemplate, properties, new SimpleAsyncTaskExecutor(), meterRegistry);
+    }
+}
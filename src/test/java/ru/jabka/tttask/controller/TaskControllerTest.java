@@ -0,0 +1,144 @@
+package ru.jabka.tttask.controller;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.service.TaskService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class TaskControllerTest {
+
+    @Mock
+    private TaskService taskService;
+
+    private TaskController taskController;
+
+    @BeforeEach
+    void setUp() {
+        taskController = new TaskController(taskService, Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
+    @Test
+    void export_success_oneJsonObjectPerLine() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Task> consumer = invocation.getArgument(1);
+            consumer.accept(task(1L));
+            consumer.accept(task(2L));
+            return null;
+        }).when(taskService).exportByFilter(Mockito.any(), Mockito.any());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(taskController).build();
+        MvcResult result = mockMvc.perform(get("/api/v1/task/export").param("status", "TO_DO"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().bytes(("""
+                        {"id":1,"title":"title 1","description":null,"status":"TO_DO","deadLine":"2030-01-01","assignee":7,"author":1,"createdAt":null,"updatedAt":null,"version":1}
+                        {"id":2,"title":"title 2","description":null,"status":"TO_DO","deadLine":"2030-01-01","assignee":7,"author":1,"createdAt":null,"updatedAt":null,"version":1}
+                        """).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void export_success_emptyBody() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(taskController).build();
+        MvcResult result = mockMvc.perform(get("/api/v1/task/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void export_success_stopsWhenClientDisconnects() throws Exception {
+        AtomicInteger written = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            Consumer<Task> consumer = invocation.getArgument(1);
+            for (long id = 0; id < 100_000; id++) {
+                consumer.accept(task(id));
+                written.incrementAndGet();
+            }
+            return null;
+        }).when(taskService).exportByFilter(Mockito.any(), Mockito.any());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(taskController)
+                .addFilters((request, response, chain) -> chain.doFilter(request, new DisconnectedResponse((HttpServletResponse) response)))
+                .build();
+        MvcResult result = mockMvc.perform(get("/api/v1/task/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        Assertions.assertTrue(written.get() < 100_000);
+    }
+
+    private static Task task(final Long id) {
+        return Task.builder()
+                .id(id)
+                .title("title " + id)
+                .status(Status.TO_DO)
+                .deadLine(LocalDate.of(2030, 1, 1))
+                .assignee(7L)
+                .author(1L)
+                .version(1)
+                .build();
+    }
+
+    /**
+     * Ответ, клиент которого отключился: любая запись в тело завершается ошибкой.
+     */
+    private static final class DisconnectedResponse extends HttpServletResponseWrapper {
+
+        private DisconnectedResponse(final HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(final int b) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(final WriteListener writeListener) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.jabka.tttask.profiling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.jabka.tttask.EmbeddedPostgresTest;
+import ru.jabka.tttask.configuration.QueryProfilerProperties;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Проверяет на встроенном PostgreSQL учёт запросов и снятие планов: EXPLAIN ANALYZE только для чтения,
+ * для записи - план без повторного выполнения.
+ */
+class QueryProfilerTest extends EmbeddedPostgresTest {
+
+    private QueryProfiler profiler;
+    private NamedParameterJdbcOperations jdbcTemplate;
+
+    @BeforeAll
+    static void createTable() {
+        new NamedParameterJdbcTemplate(dataSource).getJdbcTemplate().execute("""
+                CREATE TABLE item AS SELECT g AS id, g % 10 AS grp FROM generate_series(1, 1000) g""");
+    }
+
+    @BeforeEach
+    void setUp() {
+        QueryProfilerProperties properties = new QueryProfilerProperties();
+        properties.setSlowThreshold(Duration.ZERO);
+        properties.setPlanSampleRate(1);
+        properties.setPlanInterval(Duration.ofHours(1));
+        DataSource database = postgres.getPostgresDatabase();
+        profiler = new QueryProfiler(database, properties);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new NamedParameterJdbcTemplate(database));
+        proxyFactory.addAspect(profiler);
+        jdbcTemplate = proxyFactory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        profiler.destroy();
+    }
+
+    @Test
+    void profile_success_readIsAnalyzed() throws Exception {
+        String sql = "SELECT id FROM item WHERE grp = :grp";
+        jdbcTemplate.queryForList(sql, Map.of("grp", 3), Long.class);
+        jdbcTemplate.queryForList(sql, Map.of("grp", 4), Long.class);
+
+        QueryStats.Snapshot snapshot = awaitPlan(sql);
+        Assertions.assertEquals(2, snapshot.executions());
+        Assertions.assertEquals(2, snapshot.slowExecutions());
+        Assertions.assertEquals(100, snapshot.meanRows());
+        Assertions.assertTrue(snapshot.lastPlan().analyzed());
+        Assertions.assertTrue(snapshot.lastPlan().text().contains("actual time"), snapshot.lastPlan().text());
+    }
+
+    @Test
+    void profile_success_writeIsNotExecutedAgain() throws Exception {
+        String sql = "UPDATE item SET grp = grp + 100 WHERE id = :id";
+        Assertions.assertEquals(1, jdbcTemplate.update(sql, Map.of("id", 1)));
+
+        QueryStats.Snapshot snapshot = awaitPlan(sql);
+        Assertions.assertEquals(1, snapshot.meanRows());
+        Assertions.assertFalse(snapshot.lastPlan().analyzed());
+        Assertions.assertFalse(snapshot.lastPlan().text().contains("actual time"));
+        Assertions.assertEquals(101, jdbcTemplate.queryForObject("SELECT grp FROM item WHERE id = 1", Map.of(), Integer.class));
+    }
+
+    @Test
+    void isPlainRead_success_locksAndSideEffectsExcluded() {
+        Assertions.assertTrue(PlanCapturer.isPlainRead("WITH t AS (SELECT 1) SELECT updated_at FROM t"));
+        Assertions.assertFalse(PlanCapturer.isPlainRead("SELECT * FROM tt.task WHERE id IN (:ids) FOR UPDATE"));
+        Assertions.assertFalse(PlanCapturer.isPlainRead("SELECT pg_try_advisory_xact_lock(1)"));
+        Assertions.assertFalse(PlanCapturer.isPlainRead("WITH moved AS (DELETE FROM t RETURNING *) SELECT * FROM moved"));
+        Assertions.assertFalse(PlanCapturer.isPlainRead("INSERT INTO t VALUES (1)"));
+    }
+
+    private QueryStats.Snapshot awaitPlan(final String sql) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            List<QueryStats.Snapshot> snapshots = profiler.snapshot();
+            for (QueryStats.Snapshot snapshot : snapshots) {
+                if (snapshot.sql().equals(sql) && snapshot.lastPlan() != null) {
+                    return snapshot;
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("План не снят: " + sql);
+    }
+}
@@ -0,0 +1,192 @@
+package ru.jabka.tttask.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.jabka.tttask.EmbeddedPostgresTest;
+import ru.jabka.tttask.configuration.AssigneeLoadProperties;
+import ru.jabka.tttask.model.AssigneeLoad;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.StatusTransition;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.UpdateTask;
+import ru.jabka.tttask.repository.mapper.TaskMapper;
+import ru.jabka.tttask.service.AssigneeLoadReconciler;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Проверяет на встроенном PostgreSQL, что триггер tt.task поддерживает счётчики tt.assignee_load
+ * при любой записи задач, а сверка исправляет расхождения.
+ */
+class AssigneeLoadRepositoryTest extends EmbeddedPostgresTest {
+
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+    private static TaskRepository taskRepository;
+    private static AssigneeLoadRepository assigneeLoadRepository;
+    private static AssigneeLoadReconciler reconciler;
+
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        taskRepository = new TaskRepository(jdbcTemplate, new TaskMapper());
+        assigneeLoadRepository = new AssigneeLoadRepository(jdbcTemplate);
+        reconciler = new AssigneeLoadReconciler(assigneeLoadRepository,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), new AssigneeLoadProperties());
+    }
+
+    @Test
+    void trigger_success_countsFollowStatusAndAssignee() {
+        final Task first = taskRepository.insert(task(7L));
+        final Task second = taskRepository.insert(task(7L));
+        Assertions.assertEquals(new AssigneeLoad(7L, 2, 0), assigneeLoadRepository.getByAssignee(7L));
+
+        taskRepository.update(UpdateTask.builder().id(first.id()).status(Status.IN_PROGRESS).build(),
+                StatusTransition.allowedFrom(Status.IN_PROGRESS)).orElseThrow();
+        taskRepository.updateAll(List.of(Task.builder()
+                .id(second.id())
+                .title(second.title())
+                .description(second.description())
+                .status(second.status())
+                .deadLine(second.deadLine())
+                .assignee(8L)
+                .build()));
+        Assertions.assertEquals(new AssigneeLoad(7L, 0, 1), assigneeLoadRepository.getByAssignee(7L));
+        Assertions.assertEquals(new AssigneeLoad(8L, 1, 0), assigneeLoadRepository.getByAssignee(8L));
+
+        taskRepository.update(UpdateTask.builder().id(first.id()).status(Status.DONE).build(),
+                StatusTransition.allowedFrom(Status.DONE)).orElseThrow();
+        Assertions.assertFalse(assigneeLoadRepository.existsActive(7L));
+        Assertions.assertTrue(assigneeLoadRepository.existsActive(8L));
+    }
+
+    @Test
+    void trigger_success_batchInsertAndTitleOnlyUpdate() {
+        final List<Task> inserted = taskRepository.insertAll(List.of(task(9L), task(9L), task(9L)));
+        taskRepository.update(UpdateTask.builder().id(inserted.get(0).id()).title("changed").build(), Set.of());
+        Assertions.assertEquals(new AssigneeLoad(9L, 3, 0), assigneeLoadRepository.getByAssignee(9L));
+    }
+
+    @Test
+    void getByAssignee_success_unknownAssignee() {
+        Assertions.assertEquals(new AssigneeLoad(404L, 0, 0), assigneeLoadRepository.getByAssignee(404L));
+        Assertions.assertFalse(assigneeLoadRepository.existsActive(404L));
+    }
+
+    @Test
+    void getByAssignees_success_requestOrderWithZeros() {
+        final Task first = taskRepository.insert(task(30L));
+        taskRepository.insertAll(List.of(task(31L), task(31L)));
+        taskRepository.update(UpdateTask.builder().id(first.id()).status(Status.IN_PROGRESS).build(),
+                StatusTransition.allowedFrom(Status.IN_PROGRESS)).orElseThrow();
+        final List<AssigneeLoad> loads = assigneeLoadRepository.getByAssignees(List.of(32L, 31L, 30L));
+        Assertions.assertEquals(List.of(
+                new AssigneeLoad(32L, 0, 0),
+                new AssigneeLoad(31L, 2, 0),
+                new AssigneeLoad(30L, 0, 1)), loads);
+        Assertions.assertEquals(List.of(false, true, true), loads.stream().map(AssigneeLoad::active).toList());
+    }
+
+    @Test
+    void reconcile_success_repairsDrift() {
+        taskRepository.insertAll(List.of(task(20L), task(20L)));
+        jdbcTemplate.getJdbcTemplate().execute("UPDATE tt.assignee_load SET task_count = 42 WHERE assignee = 20");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO tt.assignee_load (assignee, status, task_count) VALUES (21, 2, 3)");
+        reconciler.reconcile();
+        Assertions.assertEquals(new AssigneeLoad(20L, 2, 0), assigneeLoadRepository.getByAssignee(20L));
+        Assertions.assertFalse(assigneeLoadRepository.existsActive(21L));
+        Assertions.assertEquals(actualCounts(), storedCounts());
+    }
+
+    @Test
+    void reconcile_success_rangeByRange() {
+        taskRepository.insertAll(List.of(task(50L), task(51L), task(51L), task(52L)));
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO tt.assignee_load_delta (assignee, status, task_count) VALUES (51, 1, 5), (53, 1, 1)");
+        AssigneeLoadProperties properties = new AssigneeLoadProperties();
+        properties.setBatchSize(1);
+        new AssigneeLoadReconciler(assigneeLoadRepository,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), properties).reconcile();
+        Assertions.assertEquals(new AssigneeLoad(51L, 2, 0), assigneeLoadRepository.getByAssignee(51L));
+        Assertions.assertFalse(assigneeLoadRepository.existsActive(53L));
+        Assertions.assertEquals(actualCounts(), storedCounts());
+    }
+
+    @Test
+    void compact_success_movesDeltasWithoutChangingCounts() {
+        taskRepository.insertAll(List.of(task(60L), task(60L), task(61L)));
+        final Map<String, Long> before = storedCounts();
+        reconciler.compact();
+        Assertions.assertEquals(0, jdbcTemplate.getJdbcTemplate().queryForObject("SELECT count(*) FROM tt.assignee_load_delta", Long.class));
+        Assertions.assertEquals(before, storedCounts());
+        Assertions.assertEquals(new AssigneeLoad(60L, 2, 0), assigneeLoadRepository.getByAssignee(60L));
+    }
+
+    @Test
+    void trigger_success_oppositeConcurrentReassignmentsDoNotBlock() throws Exception {
+        final Task first = taskRepository.insert(task(40L));
+        final Task second = taskRepository.insert(task(40L));
+        final Task third = taskRepository.insert(task(41L));
+        try (Connection one = postgres.getPostgresDatabase().getConnection();
+             Connection other = postgres.getPostgresDatabase().getConnection()) {
+            one.setAutoCommit(false);
+            other.setAutoCommit(false);
+            execute(other, "SET lock_timeout = '2s'");
+            execute(one, "UPDATE tt.task SET assignee = 41 WHERE id = " + first.id());
+            execute(other, "UPDATE tt.task SET assignee = 40, status = 2 WHERE id = " + third.id());
+            execute(one, "UPDATE tt.task SET title = 'changed' WHERE id = " + second.id());
+            other.commit();
+            one.commit();
+        }
+        Assertions.assertEquals(new AssigneeLoad(40L, 1, 1), assigneeLoadRepository.getByAssignee(40L));
+        Assertions.assertEquals(new AssigneeLoad(41L, 1, 0), assigneeLoadRepository.getByAssignee(41L));
+        reconciler.compact();
+        Assertions.assertEquals(actualCounts(), storedCounts());
+    }
+
+    private static void execute(final Connection connection, final String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static Map<String, Long> actualCounts() {
+        return counts("SELECT assignee || ':' || status AS k, count(*) AS c FROM tt.task WHERE status IN (1, 2) GROUP BY assignee, status");
+    }
+
+    private static Map<String, Long> storedCounts() {
+        return counts("""
+                SELECT assignee || ':' || status AS k, sum(task_count) AS c
+                FROM (SELECT assignee, status, task_count FROM tt.assignee_load
+                      UNION ALL
+                      SELECT assignee, status, task_count FROM tt.assignee_load_delta) l
+                GROUP BY assignee, status
+                HAVING sum(task_count) <> 0
+                """);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> counts(final String sql) {
+        return Map.ofEntries(jdbcTemplate.getJdbcTemplate().query(sql, (rs, rowNum) ->
+                Map.entry(rs.getString("k"), rs.getLong("c"))).toArray(Map.Entry[]::new));
+    }
+
+    private static Task task(final Long assignee) {
+        return Task.builder()
+                .title("title")
+                .description("description")
+                .status(Status.TO_DO)
+                .deadLine(LocalDate.of(2030, 1, 1))
+                .assignee(assignee)
+                .author(1L)
+                .build();
+    }
+}
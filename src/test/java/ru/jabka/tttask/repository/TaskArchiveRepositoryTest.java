@@ -0,0 +1,114 @@
+package ru.jabka.tttask.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.jabka.tttask.EmbeddedPostgresTest;
+import ru.jabka.tttask.exception.BadRequestException;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.repository.mapper.TaskMapper;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Проверяет на встроенном PostgreSQL перенос удалённых и давно выполненных задач в tt.task_archive.
+ */
+class TaskArchiveRepositoryTest extends EmbeddedPostgresTest {
+
+    private static final Duration DONE_RETENTION = Duration.ofDays(90);
+
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+    private static TaskRepository taskRepository;
+    private static TaskArchiveRepository taskArchiveRepository;
+
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        taskRepository = new TaskRepository(jdbcTemplate, new TaskMapper());
+        taskArchiveRepository = new TaskArchiveRepository(jdbcTemplate, new TaskMapper());
+    }
+
+    @BeforeEach
+    void drain() {
+        taskArchiveRepository.moveBatch(DONE_RETENTION, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void moveBatch_success_deletedAndOldDoneMoved() {
+        final Task active = taskRepository.insert(task());
+        final Task recentDone = insert(Status.DONE, 10);
+        final Task oldDone = insert(Status.DONE, 100);
+        final Task deleted = insert(Status.DELETED, 0);
+
+        final List<Long> moved = taskArchiveRepository.moveBatch(DONE_RETENTION, 100);
+
+        Assertions.assertEquals(Set.of(oldDone.id(), deleted.id()), new HashSet<>(moved));
+        Assertions.assertEquals(oldDone, taskArchiveRepository.getById(oldDone.id()));
+        Assertions.assertEquals(Status.DELETED, taskArchiveRepository.getById(deleted.id()).status());
+        Assertions.assertThrows(BadRequestException.class, () -> taskRepository.getById(oldDone.id()));
+        Assertions.assertEquals(active, taskRepository.getById(active.id()));
+        Assertions.assertEquals(recentDone, taskRepository.getById(recentDone.id()));
+    }
+
+    @Test
+    void moveBatch_success_smallBatches() {
+        insert(Status.DELETED, 0);
+        insert(Status.DELETED, 0);
+        insert(Status.DELETED, 0);
+        Assertions.assertEquals(2, taskArchiveRepository.moveBatch(DONE_RETENTION, 2).size());
+        Assertions.assertEquals(1, taskArchiveRepository.moveBatch(DONE_RETENTION, 2).size());
+        Assertions.assertTrue(taskArchiveRepository.moveBatch(DONE_RETENTION, 2).isEmpty());
+    }
+
+    @Test
+    void moveBatch_success_skipsRowsLockedByWriter() throws Exception {
+        final Task locked = insert(Status.DELETED, 0);
+        final Task free = insert(Status.DELETED, 0);
+        try (Connection writer = postgres.getPostgresDatabase().getConnection();
+             Statement statement = writer.createStatement()) {
+            writer.setAutoCommit(false);
+            statement.execute("SELECT 1 FROM tt.task WHERE id = " + locked.id() + " FOR UPDATE");
+            Assertions.assertEquals(List.of(free.id()), taskArchiveRepository.moveBatch(DONE_RETENTION, 100));
+            writer.rollback();
+        }
+        Assertions.assertEquals(List.of(locked.id()), taskArchiveRepository.moveBatch(DONE_RETENTION, 100));
+    }
+
+    @Test
+    void getById_error_notArchived() {
+        final Task active = taskRepository.insert(task());
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskArchiveRepository.getById(active.id())
+        );
+        Assertions.assertEquals(String.format("Задача с id %d не найдена в архиве", active.id()), exception.getMessage());
+    }
+
+    private static Task insert(final Status status, final int updatedDaysAgo) {
+        final Task task = taskRepository.insert(task());
+        jdbcTemplate.getJdbcTemplate().update(
+                "UPDATE tt.task SET status = ?, updated_at = CURRENT_TIMESTAMP - make_interval(days => ?) WHERE id = ?",
+                status.getId(), updatedDaysAgo, task.id());
+        return jdbcTemplate.getJdbcTemplate().queryForObject("SELECT * FROM tt.task WHERE id = ?", new TaskMapper(), task.id());
+    }
+
+    private static Task task() {
+        return Task.builder()
+                .title("title")
+                .description("description")
+                .status(Status.TO_DO)
+                .deadLine(LocalDate.of(2030, 1, 1))
+                .assignee(1L)
+                .author(1L)
+                .build();
+    }
+}
@@ -0,0 +1,303 @@
+package ru.jabka.tttask.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import ru.jabka.tttask.EmbeddedPostgresTest;
+import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.StatusTransition;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskFilter;
+import ru.jabka.tttask.model.TaskSearchHit;
+import ru.jabka.tttask.model.TaskVersion;
+import ru.jabka.tttask.model.UpdateTask;
+import ru.jabka.tttask.model.UpdatedTask;
+import ru.jabka.tttask.repository.mapper.TaskMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Проверяет запросы поиска на встроенном PostgreSQL. Последовательное сканирование отключено,
+ * поэтому по плану {@code EXPLAIN} видно, что для фильтра есть подходящий индекс.
+ */
+class TaskRepositoryTest extends EmbeddedPostgresTest {
+
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+    private static TaskRepository taskRepository;
+
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = Mockito.spy(new NamedParameterJdbcTemplate(dataSource));
+        jdbcTemplate.getJdbcTemplate().execute("""
+                INSERT INTO tt.task (title, description, status, dead_line, assignee, author, created_at, updated_at)
+                SELECT 'title', 'description', 1 + i % 4, DATE '2026-01-01' + i % 365, i % 100, i % 50,
+                       TIMESTAMP '2026-01-01' + i * INTERVAL '1 minute', TIMESTAMP '2026-06-01' + i * INTERVAL '1 minute'
+                FROM generate_series(1, 10000) i
+                """);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                INSERT INTO tt.task (title, description, status, dead_line, assignee, author, created_at, updated_at)
+                SELECT 'title', 'description', 1, DATE '2027-01-01', 1000 + i % 100, 1000 + i % 50,
+                       TIMESTAMP '2025-01-01', TIMESTAMP '2025-01-01'
+                FROM generate_series(1, 50000) i
+                """);
+        jdbcTemplate.getJdbcTemplate().execute("ANALYZE tt.task");
+        jdbcTemplate.getJdbcTemplate().execute("SET enable_seqscan = off");
+        taskRepository = new TaskRepository(jdbcTemplate, new TaskMapper());
+    }
+
+    @Test
+    void getByFilter_success_onlySuppliedPredicates() {
+        final TaskFilter filter = TaskFilter.builder()
+                .status(Status.TO_DO)
+                .assignee(Set.of(4L, 8L))
+                .build();
+        final List<Task> tasks = taskRepository.getByFilter(filter, 0L, 1000);
+        Assertions.assertEquals(200, tasks.size());
+        Assertions.assertTrue(tasks.stream().allMatch(x -> x.status() == Status.TO_DO && Set.of(4L, 8L).contains(x.assignee())));
+        final String sql = lastQuery();
+        Assertions.assertFalse(sql.contains("author"));
+        Assertions.assertFalse(sql.contains("tt.status"));
+    }
+
+    @Test
+    void getVersionsByFilter_success_sameRowsAsPage() {
+        final TaskFilter filter = TaskFilter.builder().assignee(Set.of(4L)).build();
+        final List<TaskVersion> versions = taskRepository.getVersionsByFilter(filter, 0L, 20);
+        final List<TaskVersion> expected = taskRepository.getByFilter(filter, 0L, 20).stream()
+                .map(x -> new TaskVersion(x.id(), x.version()))
+                .toList();
+        Assertions.assertEquals(20, versions.size());
+        Assertions.assertEquals(expected, versions);
+    }
+
+    @Test
+    void getByFilter_success_deletedExcluded() {
+        final List<Task> tasks = taskRepository.getByFilter(TaskFilter.builder().status(Status.DELETED).build(), 0L, 10);
+        Assertions.assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void getByFilter_success_afterId() {
+        final List<Task> tasks = taskRepository.getByFilter(TaskFilter.builder().author(1L).build(), 101L, 2);
+        Assertions.assertEquals(List.of(201L, 301L), tasks.stream().map(Task::id).toList());
+    }
+
+    @Test
+    void insertAll_success_generatedKeysInOrder() {
+        final List<Task> tasks = List.of(
+                Task.builder().title("first").description("description").status(Status.TO_DO)
+                        .deadLine(LocalDate.of(2030, 1, 1)).assignee(5000L).author(5000L).build(),
+                Task.builder().title("second").description("description").status(Status.TO_DO)
+                        .deadLine(LocalDate.of(2030, 1, 1)).assignee(5001L).author(5000L).build());
+        final List<Task> inserted = taskRepository.insertAll(tasks);
+        Assertions.assertEquals(2, inserted.size());
+        for (Task task : inserted) {
+            Assertions.assertEquals(task, taskRepository.getById(task.id()));
+        }
+        Assertions.assertEquals(List.of("first", "second"), inserted.stream().map(Task::title).toList());
+    }
+
+    @Test
+    void updateAll_success_lockedInIdOrder() {
+        final List<Task> locked = taskRepository.getAllByIdsForUpdate(List.of(10003L, 10001L, 10002L));
+        Assertions.assertEquals(List.of(10001L, 10002L, 10003L), locked.stream().map(Task::id).toList());
+        final Task task = locked.get(0);
+        final Task changed = Task.builder()
+                .id(task.id())
+                .title("changed")
+                .description(task.description())
+                .status(Status.IN_PROGRESS)
+                .deadLine(task.deadLine())
+                .assignee(task.assignee())
+                .build();
+        final List<Task> updated = taskRepository.updateAll(List.of(changed));
+        Assertions.assertEquals(taskRepository.getById(task.id()), updated.get(0));
+        Assertions.assertEquals(task.author(), updated.get(0).author());
+        Assertions.assertEquals("changed", updated.get(0).title());
+    }
+
+    @Test
+    void update_success_partialMergeBumpsVersion() {
+        final Task task = taskRepository.getById(10010L);
+        final UpdateTask updateTask = UpdateTask.builder()
+                .id(task.id())
+                .title("merged")
+                .status(Status.IN_PROGRESS)
+                .version(task.version())
+                .build();
+        final UpdatedTask result = taskRepository.update(updateTask, StatusTransition.allowedFrom(Status.IN_PROGRESS)).orElseThrow();
+        final Task updated = result.task();
+        Assertions.assertEquals("merged", updated.title());
+        Assertions.assertEquals(task.description(), updated.description());
+        Assertions.assertEquals(task.assignee(), updated.assignee());
+        Assertions.assertEquals(Status.IN_PROGRESS, updated.status());
+        Assertions.assertEquals(task.version() + 1, updated.version());
+        Assertions.assertEquals(task.status(), result.previousStatus());
+    }
+
+    @Test
+    void update_skipped_staleVersionIllegalTransitionOrNoChanges() {
+        final Task task = taskRepository.getById(10020L);
+        final UpdateTask stale = UpdateTask.builder().id(task.id()).title("stale").version(task.version() + 1).build();
+        Assertions.assertTrue(taskRepository.update(stale, Set.of()).isEmpty());
+        final UpdateTask illegal = UpdateTask.builder().id(task.id()).status(Status.DONE).build();
+        Assertions.assertTrue(taskRepository.update(illegal, StatusTransition.allowedFrom(Status.DONE)).isEmpty());
+        final UpdateTask same = UpdateTask.builder().id(task.id()).title(task.title()).status(task.status()).build();
+        Assertions.assertTrue(taskRepository.update(same, StatusTransition.allowedFrom(task.status())).isEmpty());
+        Assertions.assertTrue(taskRepository.update(UpdateTask.builder().id(task.id()).build(), Set.of()).isEmpty());
+        Assertions.assertEquals(task, taskRepository.getById(task.id()));
+    }
+
+    @Test
+    void getActiveByDeadLine_success_activeInDeadLineOrder() {
+        final LocalDate from = LocalDate.of(2026, 3, 1);
+        final LocalDate to = LocalDate.of(2026, 3, 3);
+        final List<Task> first = taskRepository.getActiveByDeadLine(from, to, null, null, null, 40);
+        final Task last = first.get(first.size() - 1);
+        final List<Task> second = taskRepository.getActiveByDeadLine(from, to, null, last.deadLine(), last.id(), 1000);
+        final List<Task> all = new ArrayList<>(first);
+        all.addAll(second);
+        Assertions.assertEquals(taskRepository.getActiveByDeadLine(from, to, null, null, null, 1000), all);
+        Assertions.assertTrue(all.size() > 40);
+        for (int i = 0; i < all.size(); i++) {
+            final Task task = all.get(i);
+            Assertions.assertTrue(Set.of(Status.TO_DO, Status.IN_PROGRESS).contains(task.status()));
+            Assertions.assertFalse(task.deadLine().isBefore(from) || task.deadLine().isAfter(to));
+            if (i > 0) {
+                final Task previous = all.get(i - 1);
+                Assertions.assertTrue(previous.deadLine().isBefore(task.deadLine())
+                        || previous.deadLine().equals(task.deadLine()) && previous.id() < task.id());
+            }
+        }
+    }
+
+    @Test
+    void getActiveByDeadLine_usesIndex() {
+        taskRepository.getActiveByDeadLine(null, LocalDate.of(2026, 6, 1), null, LocalDate.of(2026, 2, 1), 100L, 51);
+        final String plan = explain(lastQuery(), lastParams());
+        Assertions.assertTrue(plan.contains("task_active_dead_line_idx"), plan);
+    }
+
+    @Test
+    void getActiveByDeadLine_usesIndex_assignee() {
+        taskRepository.getActiveByDeadLine(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), 7L, null, null, 51);
+        final String plan = explain(lastQuery(), lastParams());
+        Assertions.assertTrue(plan.contains("task_active_assignee_dead_line_idx"), plan);
+    }
+
+    @Test
+    void search_success_rankedPagedAndFiltered() {
+        final Task inTitle = taskRepository.insert(searchTask("Отчёты за квартал", "собрать данные", 6000L));
+        final Task inDescription = taskRepository.insert(searchTask("Квартал", "сформировать отчёт для бухгалтерии", 6000L));
+        taskRepository.insert(searchTask("Отчёт другого исполнителя", "описание", 6001L));
+        final Task deleted = taskRepository.insert(searchTask("Удалённый отчёт", "описание", 6000L));
+        jdbcTemplate.getJdbcTemplate().update("UPDATE tt.task SET status = 4 WHERE id = ?", deleted.id());
+        final TaskFilter filter = TaskFilter.builder().assignee(Set.of(6000L)).build();
+
+        final List<TaskSearchHit> first = taskRepository.search("отчёт", filter, null, null, 1);
+        Assertions.assertEquals(List.of(inTitle.id()), first.stream().map(x -> x.task().id()).toList());
+        final TaskSearchHit last = first.get(0);
+        final List<TaskSearchHit> second = taskRepository.search("отчёт", filter, last.rank(), last.task().id(), 10);
+        Assertions.assertEquals(List.of(inDescription.id()), second.stream().map(x -> x.task().id()).toList());
+        Assertions.assertTrue(last.rank() > second.get(0).rank());
+    }
+
+    @Test
+    void search_success_titleSubstring() {
+        final Task task = taskRepository.insert(searchTask("Миграция PAY-1234_v2", "описание", 6002L));
+        final TaskFilter filter = TaskFilter.builder().assignee(Set.of(6002L)).build();
+        Assertions.assertEquals(List.of(task.id()), taskRepository.search("y-1234_v", filter, null, null, 10).stream()
+                .map(x -> x.task().id()).toList());
+        Assertions.assertTrue(taskRepository.search("1234%", filter, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void search_usesIndex_textAndTitle() {
+        taskRepository.search("отчёт", TaskFilter.builder().build(), null, null, 51);
+        final String plan = explain(lastQuery(), lastParams());
+        Assertions.assertTrue(plan.contains("task_search_idx"), plan);
+        Assertions.assertTrue(plan.contains("task_title_trgm_idx"), plan);
+    }
+
+    @Test
+    void getByFilter_usesIndex_assignee() {
+        assertUsesIndex(TaskFilter.builder().assignee(Set.of(7L)).build(), "task_assignee_status_idx");
+    }
+
+    @Test
+    void getByFilter_usesIndex_assigneeAndStatus() {
+        assertUsesIndex(TaskFilter.builder().assignee(Set.of(7L, 9L)).status(Status.IN_PROGRESS).build(), "task_assignee_status_idx");
+    }
+
+    @Test
+    void getByFilter_usesIndex_status() {
+        assertUsesIndex(TaskFilter.builder().status(Status.DONE).build(), "task_status_idx");
+    }
+
+    @Test
+    void getByFilter_usesIndex_author() {
+        assertUsesIndex(TaskFilter.builder().author(3L).build(), "task_author_idx");
+    }
+
+    @Test
+    void getByFilter_usesIndex_deadLine() {
+        assertUsesIndex(TaskFilter.builder()
+                .deadLineFrom(LocalDate.of(2026, 3, 1))
+                .deadLineTo(LocalDate.of(2026, 3, 2))
+                .build(), "task_dead_line_idx");
+    }
+
+    @Test
+    void getByFilter_usesIndex_createdAt() {
+        assertUsesIndex(TaskFilter.builder()
+                .createdFrom(LocalDateTime.of(2026, 1, 2, 0, 0))
+                .createdTo(LocalDateTime.of(2026, 1, 2, 1, 0))
+                .build(), "task_created_at_idx");
+    }
+
+    @Test
+    void getByFilter_usesIndex_updatedAt() {
+        assertUsesIndex(TaskFilter.builder()
+                .updatedFrom(LocalDateTime.of(2026, 6, 2, 0, 0))
+                .updatedTo(LocalDateTime.of(2026, 6, 2, 1, 0))
+                .build(), "task_updated_at_idx");
+    }
+
+    private Task searchTask(final String title, final String description, final Long assignee) {
+        return Task.builder().title(title).description(description).status(Status.TO_DO)
+                .deadLine(LocalDate.of(2030, 1, 1)).assignee(assignee).author(6000L).build();
+    }
+
+    private void assertUsesIndex(final TaskFilter filter, final String index) {
+        taskRepository.getByFilter(filter, 0L, 51);
+        final String plan = explain(lastQuery(), lastParams());
+        Assertions.assertTrue(plan.contains(index), plan);
+    }
+
+    private String explain(final String sql, final SqlParameterSource params) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, params, String.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private String lastQuery() {
+        final ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(jdbcTemplate, Mockito.atLeastOnce()).query(sql.capture(), Mockito.any(SqlParameterSource.class), Mockito.any(RowMapper.class));
+        return sql.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private SqlParameterSource lastParams() {
+        final ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        Mockito.verify(jdbcTemplate, Mockito.atLeastOnce()).query(Mockito.anyString(), params.capture(), Mockito.any(RowMapper.class));
+        return params.getValue();
+    }
+}
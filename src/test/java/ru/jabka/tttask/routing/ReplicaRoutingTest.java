@@ -0,0 +1,249 @@
+package ru.jabka.tttask.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import ru.jabka.tttask.EmbeddedPostgresTest;
+import ru.jabka.tttask.configuration.ReplicaRoutingProperties;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Проверяет маршрутизацию на встроенном PostgreSQL: роль реплики играет вторая база того же сервера,
+ * а таблица {@code node} в каждой базе говорит, куда ушёл запрос.
+ */
+class ReplicaRoutingTest extends EmbeddedPostgresTest {
+
+    private static final String NODE = "SELECT name FROM node";
+
+    /**
+     * Реплика в режиме восстановления без настоящей репликации: функции состояния восстановления
+     * подменяются через search_path и читают позицию и время применённого WAL из standby.state.
+     * Полученный и применённый WAL совпадают, как у реплики, потерявшей связь с основной базой.
+     */
+    private static final String STANDBY = """
+            CREATE SCHEMA standby;
+            CREATE TABLE standby.state (replay_lsn pg_lsn, replayed_at TIMESTAMPTZ);
+            INSERT INTO standby.state VALUES ('0/0', now());
+            CREATE TABLE standby.node AS SELECT 'standby' AS name;
+            CREATE FUNCTION standby.pg_is_in_recovery() RETURNS BOOLEAN LANGUAGE sql AS 'SELECT true';
+            CREATE FUNCTION standby.pg_last_wal_receive_lsn() RETURNS pg_lsn LANGUAGE sql AS 'SELECT replay_lsn FROM standby.state';
+            CREATE FUNCTION standby.pg_last_wal_replay_lsn() RETURNS pg_lsn LANGUAGE sql AS 'SELECT replay_lsn FROM standby.state';
+            CREATE FUNCTION standby.pg_last_xact_replay_timestamp() RETURNS TIMESTAMPTZ LANGUAGE sql AS 'SELECT replayed_at FROM standby.state';
+            ALTER DATABASE standby SET search_path = standby, pg_catalog, public;
+            """;
+
+    private static DataSource primary;
+    private static DataSource replica;
+    private static DataSource standby;
+
+    @BeforeAll
+    static void setUp() {
+        primary = postgres.getPostgresDatabase();
+        new JdbcTemplate(primary).execute("CREATE DATABASE replica");
+        replica = postgres.getDatabase("postgres", "replica");
+        new JdbcTemplate(primary).execute("CREATE TABLE node AS SELECT 'primary' AS name");
+        new JdbcTemplate(replica).execute("CREATE TABLE node AS SELECT 'replica' AS name");
+        new JdbcTemplate(primary).execute("CREATE DATABASE standby");
+        standby = postgres.getDatabase("postgres", "standby");
+        new JdbcTemplate(standby).execute(STANDBY);
+    }
+
+    @AfterEach
+    void clear() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void route_success_readOnlyToCheckedReplica() {
+        Routing routing = new Routing(replica);
+        Assertions.assertEquals("primary", routing.read());
+        routing.checker.check();
+        Assertions.assertEquals("replica", routing.read());
+        Assertions.assertEquals("primary", routing.write());
+        Assertions.assertEquals("primary", routing.jdbcTemplate.queryForObject(NODE, String.class));
+    }
+
+    @Test
+    void route_success_primaryWhenReplicaUnavailable() {
+        PGSimpleDataSource unavailable = new PGSimpleDataSource();
+        unavailable.setServerNames(new String[]{"localhost"});
+        unavailable.setPortNumbers(new int[]{1});
+        Routing routing = new Routing(unavailable);
+        routing.checker.check();
+        Assertions.assertFalse(routing.replica.isHealthy());
+        Assertions.assertEquals("primary", routing.read());
+
+        routing.replica.update(true, 0);
+        Assertions.assertEquals("primary", routing.read());
+        Assertions.assertFalse(routing.replica.isHealthy());
+    }
+
+    @Test
+    void check_success_replicaBehindPrimaryExcluded() {
+        JdbcTemplate state = new JdbcTemplate(standby);
+        state.update("UPDATE standby.state SET replay_lsn = '0/0', replayed_at = now()");
+        ReplicaRoutingProperties properties = new ReplicaRoutingProperties();
+        properties.setMaxLag(DataSize.ofKilobytes(64));
+        Routing routing = new Routing(standby, properties);
+        routing.checker.check();
+        Assertions.assertFalse(routing.replica.isHealthy());
+        Assertions.assertTrue(routing.replica.lagBytes() > 64 * 1024);
+        Assertions.assertEquals("primary", routing.read());
+
+        state.update("UPDATE standby.state SET replay_lsn = 'FFFFFFFF/0'");
+        routing.checker.check();
+        Assertions.assertTrue(routing.replica.isHealthy());
+        Assertions.assertEquals(0, routing.replica.lagBytes());
+    }
+
+    @Test
+    void check_success_caughtUpReplicaServesAfterIdlePrimaryWrites() {
+        JdbcTemplate state = new JdbcTemplate(standby);
+        state.update("UPDATE standby.state SET replay_lsn = CAST(? AS pg_lsn), replayed_at = now() - INTERVAL '1 hour'",
+                primaryLsn());
+        Routing routing = new Routing(standby);
+        routing.checker.check();
+        Assertions.assertTrue(routing.replica.isHealthy());
+        Assertions.assertEquals(0, routing.replica.lagBytes());
+
+        write();
+        routing.checker.check();
+        Assertions.assertTrue(routing.replica.isHealthy());
+        Assertions.assertTrue(routing.replica.lagBytes() > 0);
+        Assertions.assertEquals("standby", routing.read());
+
+        state.update("UPDATE standby.state SET replay_lsn = CAST(? AS pg_lsn), replayed_at = now()", primaryLsn());
+        routing.checker.check();
+        Assertions.assertTrue(routing.replica.isHealthy());
+        Assertions.assertEquals(0, routing.replica.lagBytes());
+    }
+
+    @Test
+    void check_success_replicaNotReplayingExcluded() {
+        JdbcTemplate state = new JdbcTemplate(standby);
+        state.update("UPDATE standby.state SET replay_lsn = CAST(? AS pg_lsn), replayed_at = now()", primaryLsn());
+        Routing routing = new Routing(standby);
+        routing.checker.check();
+        write();
+        routing.checker.check();
+        Assertions.assertTrue(routing.replica.isHealthy());
+
+        routing.checker.check();
+        Assertions.assertFalse(routing.replica.isHealthy());
+        Assertions.assertEquals("primary", routing.read());
+
+        state.update("UPDATE standby.state SET replay_lsn = CAST(? AS pg_lsn), replayed_at = now()", primaryLsn());
+        routing.checker.check();
+        Assertions.assertTrue(routing.replica.isHealthy());
+    }
+
+    @Test
+    void route_success_readYourWritesPinsToPrimary() {
+        Routing routing = new Routing(replica);
+        routing.checker.check();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ReadYourWrites.start(response, Duration.ofSeconds(5), false);
+        Assertions.assertEquals("replica", routing.read());
+        routing.readWrite.execute(status -> {
+            routing.jdbcTemplate.queryForObject(NODE, String.class);
+            status.setRollbackOnly();
+            return null;
+        });
+        Assertions.assertEquals("replica", routing.read());
+        Assertions.assertNull(response.getCookie(ReadYourWrites.COOKIE));
+        routing.write();
+        Assertions.assertEquals("primary", routing.read());
+        Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+        Assertions.assertNotNull(cookie);
+        Assertions.assertEquals(5, cookie.getMaxAge());
+    }
+
+    @Test
+    void filter_success_pinnedByRecentWriteCookie() throws Exception {
+        ReplicaRoutingProperties properties = new ReplicaRoutingProperties();
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(properties);
+        Assertions.assertTrue(pinned(filter, String.valueOf(System.currentTimeMillis() + 5_000)));
+        Assertions.assertFalse(pinned(filter, String.valueOf(System.currentTimeMillis() - 1)));
+        Assertions.assertFalse(pinned(filter, "garbage"));
+        Assertions.assertFalse(ReadYourWrites.isPinned());
+    }
+
+    private static String primaryLsn() {
+        return new JdbcTemplate(primary).queryForObject("SELECT pg_current_wal_lsn()::TEXT", String.class);
+    }
+
+    /**
+     * Встроенный PostgreSQL не ждёт записи WAL при фиксации, а реплике достаётся только записанный WAL.
+     */
+    private static void write() {
+        new JdbcTemplate(primary).execute("SET synchronous_commit = on; UPDATE node SET name = name");
+    }
+
+    private boolean pinned(final ReadYourWritesFilter filter, final String cookie) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/task");
+        request.setCookies(new Cookie(ReadYourWrites.COOKIE, cookie));
+        AtomicBoolean pinned = new AtomicBoolean();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(final HttpServletRequest req,
+                                           final HttpServletResponse res) {
+                        pinned.set(ReadYourWrites.isPinned());
+                    }
+                }));
+        return pinned.get();
+    }
+
+    private static final class Routing {
+
+        private final Replica replica;
+        private final ReplicaHealthChecker checker;
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        private Routing(final DataSource replicaDataSource) {
+            this(replicaDataSource, new ReplicaRoutingProperties());
+        }
+
+        private Routing(final DataSource replicaDataSource, final ReplicaRoutingProperties properties) {
+            replica = new Replica("replica-0", replicaDataSource);
+            ReplicaDataSource replicas = new ReplicaDataSource(primary, List.of(replica));
+            checker = new ReplicaHealthChecker(replicas, properties, new SimpleMeterRegistry());
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new WriteTrackingDataSource(primary));
+            dataSource.setReadOnlyDataSource(replicas);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readWrite = new TransactionTemplate(transactionManager);
+        }
+
+        private String read() {
+            return readOnly.execute(status -> jdbcTemplate.queryForObject(NODE, String.class));
+        }
+
+        private String write() {
+            return readWrite.execute(status -> jdbcTemplate.queryForObject(NODE, String.class));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.jabka.tttask.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.jabka.tttask.client.QueueClient;
+import ru.jabka.tttask.configuration.OutboxConfigurationProperties;
+import ru.jabka.tttask.model.history.OutboxEvent;
+import ru.jabka.tttask.model.history.TaskHistory;
+import ru.jabka.tttask.repository.OutboxRepository;
+
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private QueueClient queueClient;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        OutboxConfigurationProperties properties = new OutboxConfigurationProperties();
+        properties.setBatchSize(2);
+        Mockito.when(transactionTemplate.execute(Mockito.any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        outboxRelay = new OutboxRelay(outboxRepository, queueClient, transactionTemplate, properties);
+    }
+
+    @Test
+    void relay_success_sendsInOrderAndDeletes() {
+        OutboxEvent first = new OutboxEvent(1L, 10L, "{}");
+        OutboxEvent second = new OutboxEvent(2L, 10L, "{}");
+        TaskHistory firstHistory = new TaskHistory().setTaskId(10L).setCreatedBy(1L);
+        TaskHistory secondHistory = new TaskHistory().setTaskId(10L).setCreatedBy(2L);
+        Mockito.when(outboxRepository.tryLockRelay()).thenReturn(true);
+        Mockito.when(outboxRepository.getBatch(2)).thenReturn(List.of(first, second))
+                .thenReturn(List.of());
+        Mockito.when(outboxRepository.readPayload(first)).thenReturn(firstHistory);
+        Mockito.when(outboxRepository.readPayload(second)).thenReturn(secondHistory);
+        outboxRelay.relay();
+        var inOrder = Mockito.inOrder(queueClient, outboxRepository);
+        inOrder.verify(queueClient).sendTaskHistories(List.of(firstHistory, secondHistory));
+        inOrder.verify(outboxRepository).delete(List.of(1L, 2L));
+    }
+
+    @Test
+    void relay_skip_lockHeldByAnotherNode() {
+        Mockito.when(outboxRepository.tryLockRelay()).thenReturn(false);
+        outboxRelay.relay();
+        Mockito.verify(outboxRepository, Mockito.never()).getBatch(Mockito.anyInt());
+        Mockito.verifyNoInteractions(queueClient);
+    }
+
+    @Test
+    void relay_error_keepsEventsWhenPublishFails() {
+        OutboxEvent event = new OutboxEvent(1L, 10L, "{}");
+        TaskHistory history = new TaskHistory().setTaskId(10L);
+        Mockito.when(outboxRepository.tryLockRelay()).thenReturn(true);
+        Mockito.when(outboxRepository.getBatch(2)).thenReturn(List.of(event));
+        Mockito.when(outboxRepository.readPayload(event)).thenReturn(history);
+        Mockito.doThrow(new IllegalStateException("broker down")).when(queueClient).sendTaskHistories(List.of(history));
+        outboxRelay.relay();
+        Mockito.verify(outboxRepository, Mockito.never()).delete(Mockito.any());
+    }
+}
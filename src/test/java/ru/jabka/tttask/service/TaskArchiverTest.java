@@ -0,0 +1,61 @@
+package ru.jabka.tttask.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.jabka.tttask.configuration.TaskArchiveProperties;
+import ru.jabka.tttask.repository.TaskArchiveRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class TaskArchiverTest {
+
+    private static final Duration DONE_RETENTION = Duration.ofDays(30);
+
+    @Mock
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Mock
+    private TaskCache taskCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TaskArchiver taskArchiver;
+
+    @BeforeEach
+    void setUp() {
+        TaskArchiveProperties properties = new TaskArchiveProperties();
+        properties.setBatchSize(2);
+        properties.setDoneRetention(DONE_RETENTION);
+        Mockito.when(transactionTemplate.execute(Mockito.any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        taskArchiver = new TaskArchiver(taskArchiveRepository, taskCache, transactionTemplate, properties);
+    }
+
+    @Test
+    void archive_success_movesUntilBatchIsNotFull() {
+        Mockito.when(taskArchiveRepository.tryLockArchive()).thenReturn(true);
+        Mockito.when(taskArchiveRepository.moveBatch(DONE_RETENTION, 2)).thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+        taskArchiver.archive();
+        Mockito.verify(taskArchiveRepository, Mockito.times(2)).moveBatch(DONE_RETENTION, 2);
+        Mockito.verify(taskCache).invalidateAfterCommit(List.of(1L, 2L));
+        Mockito.verify(taskCache).invalidateAfterCommit(List.of(3L));
+    }
+
+    @Test
+    void archive_skip_lockHeldByAnotherNode() {
+        Mockito.when(taskArchiveRepository.tryLockArchive()).thenReturn(false);
+        taskArchiver.archive();
+        Mockito.verify(taskArchiveRepository, Mockito.never()).moveBatch(Mockito.any(), Mockito.anyInt());
+        Mockito.verifyNoInteractions(taskCache);
+    }
+}
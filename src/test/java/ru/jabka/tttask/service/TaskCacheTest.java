@@ -0,0 +1,122 @@
+package ru.jabka.tttask.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.jabka.tttask.client.QueueClient;
+import ru.jabka.tttask.configuration.TaskCacheProperties;
+import ru.jabka.tttask.exception.BadRequestException;
+import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskCacheInvalidation;
+import ru.jabka.tttask.repository.TaskRepository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class TaskCacheTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private QueueClient queueClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskCache taskCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        taskCache = new TaskCache(taskRepository, queueClient, new TaskCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    void get_success_loadedOnce() {
+        final Task task = Task.builder().id(1L).build();
+        Mockito.when(taskRepository.getById(1L)).thenReturn(task);
+        Assertions.assertEquals(task, taskCache.get(1L));
+        Assertions.assertEquals(task, taskCache.get(1L));
+        Mockito.verify(taskRepository, Mockito.times(1)).getById(1L);
+        Assertions.assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "tasks").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_success_concurrentMissesShareOneLoad() throws Exception {
+        final Task task = Task.builder().id(1L).build();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(taskRepository.getById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return task;
+        });
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Task> first = executor.submit(() -> taskCache.get(1L));
+            Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<Task> second = executor.submit(() -> taskCache.get(1L));
+            release.countDown();
+            Assertions.assertEquals(task, first.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(task, second.get(5, TimeUnit.SECONDS));
+        }
+        Mockito.verify(taskRepository, Mockito.times(1)).getById(1L);
+    }
+
+    @Test
+    void get_error_notCached() {
+        Mockito.when(taskRepository.getById(1L)).thenThrow(new BadRequestException("Задача с id 1 не найдена"));
+        Assertions.assertThrows(BadRequestException.class, () -> taskCache.get(1L));
+        Assertions.assertThrows(BadRequestException.class, () -> taskCache.get(1L));
+        Mockito.verify(taskRepository, Mockito.times(2)).getById(1L);
+    }
+
+    @Test
+    void invalidateAfterCommit_success_withoutTransaction() {
+        Mockito.when(taskRepository.getById(1L)).thenReturn(Task.builder().id(1L).build());
+        taskCache.get(1L);
+        taskCache.invalidateAfterCommit(List.of(1L));
+        taskCache.get(1L);
+        Mockito.verify(taskRepository, Mockito.times(2)).getById(1L);
+        Mockito.verify(queueClient).sendTaskCacheInvalidation(List.of(1L));
+    }
+
+    @Test
+    void invalidateAfterCommit_success_deferredUntilCommit() {
+        Mockito.when(taskRepository.getById(1L)).thenReturn(Task.builder().id(1L).build());
+        taskCache.get(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            taskCache.invalidateAfterCommit(List.of(1L));
+            taskCache.get(1L);
+            Mockito.verify(taskRepository, Mockito.times(1)).getById(1L);
+            Mockito.verifyNoInteractions(queueClient);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        taskCache.get(1L);
+        Mockito.verify(taskRepository, Mockito.times(2)).getById(1L);
+        Mockito.verify(queueClient).sendTaskCacheInvalidation(List.of(1L));
+    }
+
+    @Test
+    void onInvalidation_success_remoteNodeChange() {
+        Mockito.when(taskRepository.getById(1L)).thenReturn(Task.builder().id(1L).build());
+        taskCache.get(1L);
+        taskCache.onInvalidation(new TaskCacheInvalidation(List.of(1L)));
+        taskCache.get(1L);
+        Mockito.verify(taskRepository, Mockito.times(2)).getById(1L);
+        Mockito.verifyNoInteractions(queueClient);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.jabka.tttask.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.jabka.tttask.exception.BadRequestException;
+import ru.jabka.tttask.exception.ConflictException;
+import ru.jabka.tttask.model.Status;
+
+class TaskMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TaskMetrics taskMetrics = new TaskMetrics(meterRegistry);
+
+    @Test
+    void statusChanged_taggedByTargetStatus() {
+        taskMetrics.statusChanged(Status.DONE);
+        taskMetrics.statusChanged(Status.DONE);
+        Assertions.assertEquals(2, meterRegistry.counter("tt.task.status.transitions", "to", "DONE").count());
+    }
+
+    @Test
+    void rejected_reasonFromException() {
+        taskMetrics.rejected("update", new ConflictException("conflict"));
+        taskMetrics.rejected("update", new BadRequestException("bad request"));
+        Assertions.assertEquals(1, meterRegistry.counter("tt.task.rejections", "operation", "update", "reason", "conflict").count());
+        Assertions.assertEquals(1, meterRegistry.counter("tt.task.rejections", "operation", "update", "reason", "bad_request").count());
+    }
+}
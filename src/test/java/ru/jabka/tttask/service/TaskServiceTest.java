@@ -7,22 +7,40 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import ru.jabka.tttask.client.QueueClient;
 import ru.jabka.tttask.client.UserClient;
 import ru.jabka.tttask.exception.BadRequestException;
+import ru.jabka.tttask.exception.ConflictException;
+import ru.jabka.tttask.model.AssigneeLoad;
+import ru.jabka.tttask.model.BatchItem;
 import ru.jabka.tttask.model.Status;
+import ru.jabka.tttask.model.StatusTransition;
 import ru.jabka.tttask.model.Task;
+import ru.jabka.tttask.model.TaskFilter;
+import ru.jabka.tttask.model.TaskPage;
 import ru.jabka.tttask.model.TaskRequest;
+import ru.jabka.tttask.model.TaskSearchHit;
+import ru.jabka.tttask.model.TaskVersion;
 import ru.jabka.tttask.model.UpdateTask;
+import ru.jabka.tttask.model.UpdatedTask;
 import ru.jabka.tttask.model.UserResponse;
 import ru.jabka.tttask.model.UserRole;
+import ru.jabka.tttask.repository.AssigneeLoadRepository;
+import ru.jabka.tttask.repository.OutboxRepository;
+import ru.jabka.tttask.repository.TaskArchiveRepository;
+import ru.jabka.tttask.repository.TaskExportRepository;
 import ru.jabka.tttask.repository.TaskRepository;
+import ru.jabka.tttask.util.Cursor;
+import ru.jabka.tttask.util.ETags;
 import ru.jabka.tttask.util.HistoryWrapper;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,7 +53,22 @@ class TaskServiceTest {
     private UserClient userClient;
 
     @Mock
-    private QueueClient queueClient;
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private TaskExportRepository taskExportRepository;
+
+    @Mock
+    private TaskCache taskCache;
+
+    @Mock
+    private AssigneeLoadRepository assigneeLoadRepository;
+
+    @Mock
+    private TaskMetrics taskMetrics;
+
+    @Mock
+    private TaskArchiveRepository taskArchiveRepository;
 
     @InjectMocks
     private TaskService taskService;
@@ -59,7 +92,154 @@ class TaskServiceTest {
         Assertions.assertEquals(task, result);
         Mockito.verify(taskRepository).insert(task);
         Mockito.verify(userClient).getAllByIds(members);
-        Mockito.verify(queueClient).sendTaskHistory(HistoryWrapper.prepareMessage(result, result.author()));
+        Mockito.verify(outboxRepository).save(HistoryWrapper.prepareMessage(result, result.author()));
+    }
+
+    @Test
+    void createAll_success() {
+        final TaskRequest first = getValidTaskRequest();
+        final TaskRequest second = TaskRequest.builder()
+                .title("Second")
+                .description("description")
+                .deadLine(LocalDate.now())
+                .author(1L)
+                .assignee(3L)
+                .build();
+        final Task firstTask = Task.builder().id(10L).title(first.title()).author(first.author()).build();
+        final Task secondTask = Task.builder().id(11L).title(second.title()).author(second.author()).build();
+        Set<Long> members = Set.of(1L, 2L, 3L);
+        Mockito.when(userClient.getAllByIds(members)).thenReturn(idSetToUserResponseSet(members));
+        Mockito.when(taskRepository.insertAll(Mockito.anyList())).thenReturn(List.of(firstTask, secondTask));
+        List<BatchItem<Task>> result = taskService.createAll(List.of(first, second));
+        Assertions.assertEquals(List.of(BatchItem.success(0, firstTask), BatchItem.success(1, secondTask)), result);
+        Mockito.verify(userClient).getAllByIds(members);
+        Mockito.verify(outboxRepository).saveAll(List.of(
+                HistoryWrapper.prepareMessage(firstTask, firstTask.author()),
+                HistoryWrapper.prepareMessage(secondTask, secondTask.author())));
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void createAll_success_perItemErrors() {
+        final TaskRequest valid = getValidTaskRequest();
+        final TaskRequest noTitle = TaskRequest.builder()
+                .description("description")
+                .deadLine(LocalDate.now())
+                .author(1L)
+                .assignee(2L)
+                .build();
+        final TaskRequest unknownAssignee = TaskRequest.builder()
+                .title("Title")
+                .description("description")
+                .deadLine(LocalDate.now())
+                .author(1L)
+                .assignee(5L)
+                .build();
+        final Task task = Task.builder().id(10L).title(valid.title()).author(valid.author()).build();
+        Mockito.when(userClient.getAllByIds(Set.of(1L, 2L, 5L))).thenReturn(idSetToUserResponseSet(Set.of(1L, 2L)));
+        Mockito.when(taskRepository.insertAll(Mockito.anyList())).thenReturn(List.of(task));
+        List<BatchItem<Task>> result = taskService.createAll(List.of(noTitle, valid, unknownAssignee));
+        Assertions.assertEquals(List.of(
+                BatchItem.failure(0, "Заполните заголовок задачи"),
+                BatchItem.success(1, task),
+                BatchItem.failure(2, "Пользователь с id = 5 не найден")), result);
+        Mockito.verify(taskRepository).insertAll(List.of(Task.builder()
+                .title(valid.title())
+                .description(valid.description())
+                .status(Status.TO_DO)
+                .deadLine(valid.deadLine())
+                .author(valid.author())
+                .assignee(valid.assignee())
+                .build()));
+        Mockito.verify(taskMetrics).rejected(Mockito.eq("createAll"), Mockito.any(BadRequestException.class));
+        Mockito.verify(taskMetrics).rejected("createAll", TaskMetrics.BAD_REQUEST);
+    }
+
+    @Test
+    void createAll_success_nothingValid() {
+        final TaskRequest noTitle = TaskRequest.builder().build();
+        List<BatchItem<Task>> result = taskService.createAll(List.of(noTitle));
+        Assertions.assertEquals(List.of(BatchItem.failure(0, "Заполните заголовок задачи")), result);
+        Mockito.verifyNoInteractions(userClient, taskRepository, outboxRepository);
+    }
+
+    @Test
+    void createAll_error_emptyBatch() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.createAll(List.of())
+        );
+        Assertions.assertEquals("Размер пакета должен быть от 1 до 1000", exception.getMessage());
+        Mockito.verifyNoInteractions(userClient, taskRepository);
+    }
+
+    @Test
+    void updateAll_success() {
+        final UserResponse manager = UserResponse.builder().id(7L).role(UserRole.MANAGER).build();
+        final UpdateTask first = UpdateTask.builder()
+                .id(1L)
+                .status(Status.IN_PROGRESS)
+                .editor(manager.id())
+                .build();
+        final UpdateTask second = UpdateTask.builder()
+                .id(2L)
+                .assignee(3L)
+                .editor(manager.id())
+                .build();
+        final Task firstTask = Task.builder().id(1L).title("first").status(Status.TO_DO).assignee(2L).build();
+        final Task secondTask = Task.builder().id(2L).title("second").status(Status.TO_DO).assignee(2L).build();
+        final Task firstUpdated = Task.builder().id(1L).title("first").status(Status.IN_PROGRESS).assignee(2L).build();
+        final Task secondUpdated = Task.builder().id(2L).title("second").status(Status.TO_DO).assignee(3L).build();
+        Mockito.when(userClient.getAllByIds(Set.of(7L, 3L))).thenReturn(Set.of(manager, UserResponse.builder().id(3L).build()));
+        Mockito.when(taskRepository.getAllByIdsForUpdate(Set.of(1L, 2L))).thenReturn(List.of(firstTask, secondTask));
+        Mockito.when(taskRepository.updateAll(List.of(firstUpdated, secondUpdated))).thenReturn(List.of(firstUpdated, secondUpdated));
+        List<BatchItem<Task>> result = taskService.updateAll(List.of(first, second));
+        Assertions.assertEquals(List.of(BatchItem.success(0, firstUpdated), BatchItem.success(1, secondUpdated)), result);
+        Mockito.verify(userClient, Mockito.times(1)).getAllByIds(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
+        Mockito.verify(outboxRepository).saveAll(List.of(
+                HistoryWrapper.prepareMessage(firstUpdated, manager.id()),
+                HistoryWrapper.prepareMessage(secondUpdated, manager.id())));
+        Mockito.verify(taskCache).invalidateAfterCommit(List.of(1L, 2L));
+        Mockito.verify(taskMetrics).statusChanged(Status.IN_PROGRESS);
+        Mockito.verifyNoMoreInteractions(taskMetrics);
+    }
+
+    @Test
+    void updateAll_success_perItemErrors() {
+        final UserResponse user = UserResponse.builder().id(8L).role(UserRole.USER).build();
+        final UpdateTask noId = UpdateTask.builder().editor(user.id()).build();
+        final UpdateTask illegalTransition = UpdateTask.builder().id(1L).status(Status.DONE).editor(user.id()).build();
+        final UpdateTask notFound = UpdateTask.builder().id(2L).title("Title").editor(user.id()).build();
+        final UpdateTask notManager = UpdateTask.builder().id(3L).assignee(5L).editor(user.id()).build();
+        final UpdateTask valid = UpdateTask.builder().id(4L).title("Title").editor(user.id()).build();
+        final UpdateTask duplicate = UpdateTask.builder().id(4L).title("Other").editor(user.id()).build();
+        final Task task = Task.builder().id(1L).title("first").status(Status.TO_DO).build();
+        final Task validTask = Task.builder().id(4L).title("fourth").status(Status.TO_DO).build();
+        final Task validUpdated = Task.builder().id(4L).title("Title").status(Status.TO_DO).build();
+        Mockito.when(userClient.getAllByIds(Set.of(8L, 5L))).thenReturn(Set.of(user, UserResponse.builder().id(5L).build()));
+        Mockito.when(taskRepository.getAllByIdsForUpdate(Set.of(1L, 2L, 3L, 4L)))
+                .thenReturn(List.of(task, Task.builder().id(3L).status(Status.TO_DO).build(), validTask));
+        Mockito.when(taskRepository.updateAll(List.of(validUpdated))).thenReturn(List.of(validUpdated));
+        List<BatchItem<Task>> result = taskService.updateAll(List.of(noId, illegalTransition, notFound, notManager, valid, duplicate));
+        Assertions.assertEquals(List.of(
+                BatchItem.failure(0, "Не указан id задачи, которую необходимо обновить"),
+                BatchItem.failure(1, "Переход статуса из TO_DO в DONE невозможен"),
+                BatchItem.failure(2, "Задача с id 2 не найдена"),
+                BatchItem.failure(3, "Роль пользователя id = 8, выполняющего редактирование, не соответствует роли MANAGER"),
+                BatchItem.success(4, validUpdated),
+                BatchItem.failure(5, "Задача с id 4 указана в пакете несколько раз")), result);
+        Mockito.verify(outboxRepository).saveAll(List.of(HistoryWrapper.prepareMessage(validUpdated, user.id())));
+        Mockito.verify(taskMetrics).rejected(Mockito.eq("updateAll"), Mockito.any(ConflictException.class));
+        Mockito.verify(taskMetrics, Mockito.times(4)).rejected(Mockito.eq("updateAll"), Mockito.any(BadRequestException.class));
+        Mockito.verify(taskMetrics, Mockito.never()).statusChanged(Mockito.any());
+    }
+
+    @Test
+    void updateAll_success_nothingValid() {
+        List<BatchItem<Task>> result = taskService.updateAll(List.of(UpdateTask.builder().id(1L).build()));
+        Assertions.assertEquals(List.of(BatchItem.failure(0, "Не указан id пользователя, который редактирует задачу")), result);
+        Mockito.verifyNoInteractions(userClient, taskRepository, outboxRepository);
     }
 
     @Test
@@ -86,13 +266,14 @@ class TaskServiceTest {
                 .id(updateTask.assignee())
                 .build();
         Mockito.when(userClient.getAllByIds(members)).thenReturn(Set.of(assignee));
-        Mockito.when(taskRepository.update(task)).thenReturn(task);
-        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.of(new UpdatedTask(task, task.status())));
         Task result = taskService.update(updateTask);
         Assertions.assertEquals(task, result);
-        Mockito.verify(taskRepository).update(task);
+        Mockito.verify(taskRepository).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
         Mockito.verify(userClient).getAllByIds(members);
-        Mockito.verify(queueClient).sendTaskHistory(HistoryWrapper.prepareMessage(result, updateTask.editor()));
+        Mockito.verify(outboxRepository).save(HistoryWrapper.prepareMessage(result, updateTask.editor()));
+        Mockito.verify(taskCache).invalidateAfterCommit(List.of(updateTask.id()));
     }
 
     @Test
@@ -115,14 +296,35 @@ class TaskServiceTest {
                 .status(updateTask.status())
                 .build();
         Set<Long> members = Set.of(user.id());
-        Mockito.when(taskRepository.update(task)).thenReturn(task);
-        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.of(new UpdatedTask(task, task.status())));
         Task result = taskService.update(updateTask);
         Assertions.assertEquals(task, result);
-        Mockito.verify(taskRepository).update(task);
+        Mockito.verify(taskRepository).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
         Mockito.verify(userClient).getAllByIds(members);
     }
 
+    @Test
+    void update_success_sameStatusNotCounted() {
+        final UpdateTask updateTask = UpdateTask.builder()
+                .id(1L)
+                .title("Other title")
+                .status(Status.IN_PROGRESS)
+                .editor(mockManager().id())
+                .build();
+        final Task updated = Task.builder()
+                .id(updateTask.id())
+                .title(updateTask.title())
+                .status(Status.IN_PROGRESS)
+                .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status())))
+                .thenReturn(Optional.of(new UpdatedTask(updated, Status.IN_PROGRESS)));
+        Task result = taskService.update(updateTask);
+        Assertions.assertEquals(updated, result);
+        Mockito.verify(outboxRepository).save(Mockito.any());
+        Mockito.verify(taskMetrics, Mockito.never()).statusChanged(Mockito.any());
+    }
+
     @Test
     void update_success_todo_to_in_progress() {
         final UpdateTask updateTask = UpdateTask.builder()
@@ -146,11 +348,12 @@ class TaskServiceTest {
                 .assignee(task.assignee())
                 .status(updateTask.status())
                 .build();
-        Mockito.when(taskRepository.update(updated)).thenReturn(updated);
-        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.of(new UpdatedTask(updated, task.status())));
         Task result = taskService.update(updateTask);
         Assertions.assertEquals(updated, result);
-        Mockito.verify(taskRepository).update(updated);
+        Mockito.verify(taskRepository).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
+        Mockito.verify(taskMetrics).statusChanged(Status.IN_PROGRESS);
     }
 
     @Test
@@ -176,11 +379,11 @@ class TaskServiceTest {
                 .assignee(task.assignee())
                 .status(updateTask.status())
                 .build();
-        Mockito.when(taskRepository.update(updated)).thenReturn(updated);
-        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.of(new UpdatedTask(updated, task.status())));
         Task result = taskService.update(updateTask);
         Assertions.assertEquals(updated, result);
-        Mockito.verify(taskRepository).update(updated);
+        Mockito.verify(taskRepository).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
     }
 
     @Test
@@ -206,11 +409,11 @@ class TaskServiceTest {
                 .assignee(task.assignee())
                 .status(updateTask.status())
                 .build();
-        Mockito.when(taskRepository.update(updated)).thenReturn(updated);
-        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.of(new UpdatedTask(updated, task.status())));
         Task result = taskService.update(updateTask);
         Assertions.assertEquals(updated, result);
-        Mockito.verify(taskRepository).update(updated);
+        Mockito.verify(taskRepository).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
     }
 
     @Test
@@ -236,11 +439,11 @@ class TaskServiceTest {
                 .assignee(task.assignee())
                 .status(updateTask.status())
                 .build();
-        Mockito.when(taskRepository.update(updated)).thenReturn(updated);
-        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.of(new UpdatedTask(updated, task.status())));
         Task result = taskService.update(updateTask);
         Assertions.assertEquals(updated, result);
-        Mockito.verify(taskRepository).update(updated);
+        Mockito.verify(taskRepository).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
     }
 
     @Test
@@ -266,70 +469,381 @@ class TaskServiceTest {
                 .assignee(task.assignee())
                 .status(updateTask.status())
                 .build();
-        Mockito.when(taskRepository.update(updated)).thenReturn(updated);
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.of(new UpdatedTask(updated, task.status())));
+        Task result = taskService.update(updateTask);
+        Assertions.assertEquals(updated, result);
+        Mockito.verify(taskRepository).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(taskRepository, Mockito.never()).getById(Mockito.any());
+    }
+
+    @Test
+    void update_success_noChanges() {
+        final UpdateTask updateTask = UpdateTask.builder()
+                .id(1L)
+                .title("Title")
+                .editor(mockUser().id())
+                .build();
+        final Task task = getValidTask();
+        Mockito.when(taskRepository.update(updateTask, Set.of())).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
         Task result = taskService.update(updateTask);
+        Assertions.assertEquals(task, result);
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verifyNoInteractions(taskCache);
+    }
+
+    @Test
+    void update_error_staleVersion() {
+        final UpdateTask updateTask = UpdateTask.builder()
+                .id(1L)
+                .title("Other title")
+                .editor(mockUser().id())
+                .version(2)
+                .build();
+        final Task task = Task.builder()
+                .id(updateTask.id())
+                .title("Title")
+                .status(Status.TO_DO)
+                .version(3)
+                .build();
+        Mockito.when(taskRepository.update(updateTask, Set.of())).thenReturn(Optional.empty());
+        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(task);
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
+                () -> taskService.update(updateTask)
+        );
+        Assertions.assertEquals("Задача с id 1 изменена: текущая версия 3, ожидалась 2", exception.getMessage());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void update_error_taskNotFound() {
+        final UpdateTask updateTask = UpdateTask.builder()
+                .id(1L)
+                .title("Title")
+                .editor(mockUser().id())
+                .build();
+        Mockito.when(taskRepository.update(updateTask, Set.of())).thenReturn(Optional.empty());
+        Mockito.when(taskRepository.getById(updateTask.id())).thenThrow(new BadRequestException("Задача с id 1 не найдена"));
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.update(updateTask)
+        );
+        Assertions.assertEquals("Задача с id 1 не найдена", exception.getMessage());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void update_success_retriedAfterConcurrentChange() {
+        final UpdateTask updateTask = UpdateTask.builder()
+                .id(1L)
+                .status(Status.IN_PROGRESS)
+                .editor(mockManager().id())
+                .build();
+        final Task current = Task.builder()
+                .id(updateTask.id())
+                .status(Status.TO_DO)
+                .build();
+        final Task updated = Task.builder()
+                .id(updateTask.id())
+                .status(Status.IN_PROGRESS)
+                .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status())))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new UpdatedTask(updated, current.status())));
+        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(current);
+        Task result = taskService.update(updateTask);
         Assertions.assertEquals(updated, result);
-        Mockito.verify(taskRepository).update(updated);
+        Mockito.verify(taskRepository, Mockito.times(2)).update(updateTask, StatusTransition.allowedFrom(updateTask.status()));
+        Mockito.verify(outboxRepository).save(Mockito.any());
+        Mockito.verify(taskMetrics).statusChanged(Status.IN_PROGRESS);
+    }
+
+    @Test
+    void update_error_concurrentChangeNotApplied() {
+        final UpdateTask updateTask = UpdateTask.builder()
+                .id(1L)
+                .title("Other title")
+                .editor(mockUser().id())
+                .build();
+        Mockito.when(taskRepository.update(updateTask, Set.of())).thenReturn(Optional.empty());
+        Mockito.when(taskRepository.getById(updateTask.id())).thenReturn(getValidTask());
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
+                () -> taskService.update(updateTask)
+        );
+        Assertions.assertEquals("Задача с id 1 изменена параллельно, повторите запрос", exception.getMessage());
+        Mockito.verify(taskRepository, Mockito.times(2)).update(updateTask, Set.of());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
     void getById_success() {
         final Long taskId = 1L;
         final Task task = getValidTask();
-        Mockito.when(taskRepository.getById(taskId)).thenReturn(task);
+        Mockito.when(taskCache.get(taskId)).thenReturn(task);
         Task result = taskService.getById(taskId);
         Assertions.assertEquals(task, result);
-        Mockito.verify(taskRepository).getById(taskId);
+        Mockito.verify(taskCache).get(taskId);
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getArchivedById_success() {
+        final Task task = getValidTask();
+        Mockito.when(taskArchiveRepository.getById(task.id())).thenReturn(task);
+        Assertions.assertEquals(task, taskService.getArchivedById(task.id()));
+        Mockito.verifyNoInteractions(taskCache, taskRepository);
     }
 
     @Test
     void existsActiveTasksByAssignee() {
         final Long assignee = getValidTask().assignee();
-        Mockito.when(taskRepository.existsActiveTasksByAssignee(assignee)).thenReturn(true);
+        Mockito.when(assigneeLoadRepository.existsActive(assignee)).thenReturn(true);
         Boolean result = taskService.existsActiveTasksByAssignee(assignee);
         Assertions.assertEquals(true, result);
-        Mockito.verify(taskRepository).existsActiveTasksByAssignee(assignee);
+        Mockito.verify(assigneeLoadRepository).existsActive(assignee);
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getAssigneeLoad() {
+        final AssigneeLoad load = new AssigneeLoad(1L, 2L, 3L);
+        Mockito.when(assigneeLoadRepository.getByAssignee(1L)).thenReturn(load);
+        Assertions.assertEquals(load, taskService.getAssigneeLoad(1L));
+        Assertions.assertEquals(5L, load.total());
+    }
+
+    @Test
+    void getAssigneeLoads_success_duplicatesRemovedInOrder() {
+        final List<AssigneeLoad> loads = List.of(new AssigneeLoad(3L, 1L, 0L), new AssigneeLoad(1L, 0L, 0L));
+        Mockito.when(assigneeLoadRepository.getByAssignees(new LinkedHashSet<>(List.of(3L, 1L)))).thenReturn(loads);
+        Assertions.assertEquals(loads, taskService.getAssigneeLoads(List.of(3L, 1L, 3L)));
+    }
+
+    @Test
+    void getAssigneeLoads_error_emptyList() {
+        final BadRequestException exception = Assertions.assertThrows(BadRequestException.class,
+                () -> taskService.getAssigneeLoads(List.of()));
+        Assertions.assertEquals("Число исполнителей должно быть от 1 до 10000", exception.getMessage());
+        Mockito.verifyNoInteractions(assigneeLoadRepository);
+    }
+
+    @Test
+    void getAssigneeLoads_error_nullId() {
+        final BadRequestException exception = Assertions.assertThrows(BadRequestException.class,
+                () -> taskService.getAssigneeLoads(Arrays.asList(1L, null)));
+        Assertions.assertEquals("id исполнителя не может быть пустым", exception.getMessage());
     }
 
     @Test
     void getAllByFilter_success_fullFilter() {
-        final Status status = Status.TO_DO;
         final Long assignee = 1L;
+        final Long author = 2L;
+        final TaskFilter filter = TaskFilter.builder()
+                .status(Status.TO_DO)
+                .assignee(Set.of(assignee))
+                .author(author)
+                .deadLineFrom(LocalDate.of(2026, 1, 1))
+                .deadLineTo(LocalDate.of(2026, 2, 1))
+                .createdFrom(LocalDateTime.of(2026, 1, 1, 0, 0))
+                .build();
         final List<Task> taskList = List.of(getValidTask());
-        Set<Long> ids = Set.of(assignee);
+        Set<Long> ids = Set.of(assignee, author);
         Mockito.when(userClient.getAllByIds(ids)).thenReturn(idSetToUserResponseSet(ids));
-        Mockito.when(taskRepository.getByFilter(status.getId(), assignee)).thenReturn(taskList);
-        Set<Task> result = taskService.getAllByFilter(status, assignee);
-        Assertions.assertEquals(Set.copyOf(taskList), result);
-        Mockito.verify(taskRepository).getByFilter(status.getId(), assignee);
+        Mockito.when(taskRepository.getByFilter(filter, 0L, 51)).thenReturn(taskList);
+        TaskPage result = taskService.getAllByFilter(filter, null, null);
+        Assertions.assertEquals(new TaskPage(taskList, null), result);
+        Mockito.verify(taskRepository).getByFilter(filter, 0L, 51);
         Mockito.verify(userClient).getAllByIds(ids);
     }
 
     @Test
     void getAllByFilter_success_onlyStatus() {
-        final Status status = Status.TO_DO;
+        final TaskFilter filter = TaskFilter.builder().status(Status.TO_DO).build();
         final List<Task> taskList = List.of(getValidTask());
-        Mockito.when(taskRepository.getByFilter(status.getId(), null)).thenReturn(taskList);
-        Set<Task> result = taskService.getAllByFilter(status, null);
-        Assertions.assertEquals(Set.copyOf(taskList), result);
-        Mockito.verify(taskRepository).getByFilter(status.getId(), null);
+        Mockito.when(taskRepository.getByFilter(filter, 0L, 51)).thenReturn(taskList);
+        TaskPage result = taskService.getAllByFilter(filter, null, null);
+        Assertions.assertEquals(new TaskPage(taskList, null), result);
+        Mockito.verify(taskRepository).getByFilter(filter, 0L, 51);
         Mockito.verify(userClient, Mockito.never()).getAllByIds(Mockito.any());
     }
 
     @Test
-    void getAllByFilter_success_onlyAssignee() {
-        final Long assignee = 1L;
+    void getAllByFilter_success_severalAssignees() {
+        final Set<Long> ids = Set.of(1L, 2L);
+        final TaskFilter filter = TaskFilter.builder().assignee(ids).build();
         final List<Task> taskList = List.of(getValidTask());
-        Set<Long> ids = Set.of(assignee);
         Mockito.when(userClient.getAllByIds(ids)).thenReturn(idSetToUserResponseSet(ids));
-        Mockito.when(taskRepository.getByFilter(null, assignee)).thenReturn(taskList);
-        Set<Task> result = taskService.getAllByFilter(null, assignee);
-        Assertions.assertEquals(Set.copyOf(taskList), result);
-        Mockito.verify(taskRepository).getByFilter(null, assignee);
+        Mockito.when(taskRepository.getByFilter(filter, 0L, 51)).thenReturn(taskList);
+        TaskPage result = taskService.getAllByFilter(filter, null, null);
+        Assertions.assertEquals(new TaskPage(taskList, null), result);
+        Mockito.verify(taskRepository).getByFilter(filter, 0L, 51);
         Mockito.verify(userClient).getAllByIds(ids);
     }
 
+    @Test
+    void getAllByFilter_success_nextPage() {
+        final TaskFilter filter = TaskFilter.builder().build();
+        final Task first = getValidTask();
+        final Task second = Task.builder().id(2L).build();
+        final Task third = Task.builder().id(3L).build();
+        Mockito.when(taskRepository.getByFilter(filter, 0L, 3)).thenReturn(List.of(first, second, third));
+        TaskPage result = taskService.getAllByFilter(filter, 2, null);
+        Assertions.assertEquals(List.of(first, second), result.items());
+        Assertions.assertEquals(Cursor.encode(second.id()), result.next());
+        Mockito.when(taskRepository.getByFilter(filter, second.id(), 3)).thenReturn(List.of(third));
+        TaskPage nextPage = taskService.getAllByFilter(filter, 2, result.next());
+        Assertions.assertEquals(new TaskPage(List.of(third), null), nextPage);
+    }
+
+    @Test
+    void getPageTag_success_matchesLoadedPage() {
+        final TaskFilter filter = TaskFilter.builder().status(Status.TO_DO).build();
+        final Task first = Task.builder().id(1L).version(3).build();
+        final Task second = Task.builder().id(2L).version(0).build();
+        final Task third = Task.builder().id(3L).version(1).build();
+        Mockito.when(taskRepository.getVersionsByFilter(filter, 0L, 3)).thenReturn(List.of(
+                new TaskVersion(1L, 3), new TaskVersion(2L, 0), new TaskVersion(3L, 1)));
+        Mockito.when(taskRepository.getByFilter(filter, 0L, 3)).thenReturn(List.of(first, second, third));
+        String tag = taskService.getPageTag(filter, 2, null);
+        Assertions.assertEquals(ETags.ofPage(taskService.getAllByFilter(filter, 2, null)), tag);
+        Mockito.when(taskRepository.getVersionsByFilter(filter, 0L, 3)).thenReturn(List.of(
+                new TaskVersion(1L, 4), new TaskVersion(2L, 0), new TaskVersion(3L, 1)));
+        Assertions.assertNotEquals(tag, taskService.getPageTag(filter, 2, null));
+    }
+
+    @Test
+    void getAllByFilter_error_invalidLimit() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.getAllByFilter(TaskFilter.builder().build(), 501, null)
+        );
+        Assertions.assertEquals("Размер страницы должен быть от 1 до 500", exception.getMessage());
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getAllByFilter_error_invalidCursor() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.getAllByFilter(TaskFilter.builder().build(), null, "not a cursor")
+        );
+        Assertions.assertEquals("Некорректный курсор страницы", exception.getMessage());
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getAllByFilter_error_invalidRange() {
+        final TaskFilter filter = TaskFilter.builder()
+                .deadLineFrom(LocalDate.of(2026, 2, 1))
+                .deadLineTo(LocalDate.of(2026, 1, 1))
+                .build();
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.getAllByFilter(filter, null, null)
+        );
+        Assertions.assertEquals("Начало диапазона 2026-02-01 позже его окончания 2026-01-01", exception.getMessage());
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getDue_success_nextPageByDeadLineAndId() {
+        final LocalDate from = LocalDate.of(2026, 3, 1);
+        final LocalDate to = LocalDate.of(2026, 3, 31);
+        final Task first = Task.builder().id(7L).deadLine(LocalDate.of(2026, 3, 2)).build();
+        final Task second = Task.builder().id(3L).deadLine(LocalDate.of(2026, 3, 5)).build();
+        final Task third = Task.builder().id(4L).deadLine(LocalDate.of(2026, 3, 5)).build();
+        Mockito.when(taskRepository.getActiveByDeadLine(from, to, 1L, null, null, 3)).thenReturn(List.of(first, second, third));
+        TaskPage result = taskService.getDue(from, to, 1L, 2, null);
+        Assertions.assertEquals(List.of(first, second), result.items());
+        Assertions.assertEquals(Cursor.encode(second.deadLine(), second.id()), result.next());
+        Mockito.when(taskRepository.getActiveByDeadLine(from, to, 1L, second.deadLine(), second.id(), 3)).thenReturn(List.of(third));
+        Assertions.assertEquals(new TaskPage(List.of(third), null), taskService.getDue(from, to, 1L, 2, result.next()));
+        Mockito.verifyNoInteractions(userClient);
+    }
+
+    @Test
+    void getDue_error_invalidRange() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.getDue(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1), null, null, null)
+        );
+        Assertions.assertEquals("Начало диапазона 2026-02-01 позже его окончания 2026-01-01", exception.getMessage());
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getOverdue_success_deadLineBeforeToday() {
+        final Task task = Task.builder().id(1L).deadLine(LocalDate.of(2026, 1, 1)).build();
+        Mockito.when(taskRepository.getActiveByDeadLine(null, LocalDate.now().minusDays(1), null, null, null, 51))
+                .thenReturn(List.of(task));
+        Assertions.assertEquals(new TaskPage(List.of(task), null), taskService.getOverdue(null, null, null));
+    }
+
+    @Test
+    void getOverdue_error_invalidCursor() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.getOverdue(null, null, Cursor.encode("yesterday", 1L))
+        );
+        Assertions.assertEquals("Некорректный курсор страницы", exception.getMessage());
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void search_success_nextPageByRankAndId() {
+        final TaskFilter filter = TaskFilter.builder().status(Status.TO_DO).build();
+        final Task first = Task.builder().id(5L).build();
+        final Task second = Task.builder().id(2L).build();
+        final Task third = Task.builder().id(9L).build();
+        Mockito.when(taskRepository.search("отчёт", filter, null, null, 3)).thenReturn(List.of(
+                new TaskSearchHit(first, 0.9f), new TaskSearchHit(second, 0.25f), new TaskSearchHit(third, 0.25f)));
+        TaskPage result = taskService.search("  отчёт ", filter, 2, null);
+        Assertions.assertEquals(List.of(first, second), result.items());
+        Assertions.assertEquals(Cursor.encode(0.25f, 2L), result.next());
+        Mockito.when(taskRepository.search("отчёт", filter, 0.25f, 2L, 3)).thenReturn(List.of(new TaskSearchHit(third, 0.25f)));
+        Assertions.assertEquals(new TaskPage(List.of(third), null), taskService.search("отчёт", filter, 2, result.next()));
+    }
+
+    @Test
+    void search_error_blankText() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.search("  ", TaskFilter.builder().build(), null, null)
+        );
+        Assertions.assertEquals("Строка поиска должна содержать от 1 до 200 символов", exception.getMessage());
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void search_error_invalidCursor() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> taskService.search("отчёт", TaskFilter.builder().build(), null, Cursor.encode("rank", 1L))
+        );
+        Assertions.assertEquals("Некорректный курсор страницы", exception.getMessage());
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void exportByFilter_success() {
+        final TaskFilter filter = TaskFilter.builder().status(Status.TO_DO).build();
+        final Consumer<Task> consumer = task -> {
+        };
+        taskService.exportByFilter(filter, consumer);
+        Mockito.verify(taskExportRepository).streamByFilter(filter, consumer);
+        Mockito.verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void validateFilter_error_assigneeNotFound() {
+        final Long assignee = 1L;
+        Mockito.when(userClient.getAllByIds(Set.of(assignee))).thenReturn(Set.of());
+        Assertions.assertThrows(BadRequestException.class, () -> taskService.validateFilter(TaskFilter.builder().assignee(Set.of(assignee)).build()));
+        Mockito.verifyNoInteractions(taskExportRepository);
+    }
+
     @Test
     void create_error_nullRequest() {
         final BadRequestException exception = Assertions.assertThrows(
@@ -497,7 +1011,7 @@ class TaskServiceTest {
                 () -> taskService.update(null)
         );
         Assertions.assertEquals("Заполните данные для обновления", exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -515,7 +1029,7 @@ class TaskServiceTest {
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals("Не указан id задачи, которую необходимо обновить", exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -538,7 +1052,7 @@ class TaskServiceTest {
         Assertions.assertEquals(
                 String.format("Пользователь с id = %d не найден", updateTask.assignee()),
                 exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -560,7 +1074,7 @@ class TaskServiceTest {
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals("Срок исполнения не может быть в прошлом", exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -578,13 +1092,14 @@ class TaskServiceTest {
                 .assignee(updateTask.assignee())
                 .status(Status.TO_DO)
                 .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(task.id())).thenReturn(task);
-        final BadRequestException exception = Assertions.assertThrows(
-                BadRequestException.class,
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Переход статуса из %s в %s невозможен", task.status(), updateTask.status()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -602,13 +1117,14 @@ class TaskServiceTest {
                 .assignee(updateTask.assignee())
                 .status(Status.IN_PROGRESS)
                 .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(task.id())).thenReturn(task);
-        final BadRequestException exception = Assertions.assertThrows(
-                BadRequestException.class,
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Переход статуса из %s в %s невозможен", task.status(), updateTask.status()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -626,13 +1142,14 @@ class TaskServiceTest {
                 .assignee(updateTask.assignee())
                 .status(Status.DONE)
                 .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(task.id())).thenReturn(task);
-        final BadRequestException exception = Assertions.assertThrows(
-                BadRequestException.class,
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Переход статуса из %s в %s невозможен", task.status(), updateTask.status()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -650,13 +1167,14 @@ class TaskServiceTest {
                 .assignee(updateTask.assignee())
                 .status(Status.DONE)
                 .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(task.id())).thenReturn(task);
-        final BadRequestException exception = Assertions.assertThrows(
-                BadRequestException.class,
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Переход статуса из %s в %s невозможен", task.status(), updateTask.status()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -674,13 +1192,14 @@ class TaskServiceTest {
                 .assignee(updateTask.assignee())
                 .status(Status.DELETED)
                 .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(task.id())).thenReturn(task);
-        final BadRequestException exception = Assertions.assertThrows(
-                BadRequestException.class,
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Переход статуса из %s в %s невозможен", task.status(), updateTask.status()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -698,13 +1217,14 @@ class TaskServiceTest {
                 .assignee(updateTask.assignee())
                 .status(Status.DELETED)
                 .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(task.id())).thenReturn(task);
-        final BadRequestException exception = Assertions.assertThrows(
-                BadRequestException.class,
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Переход статуса из %s в %s невозможен", task.status(), updateTask.status()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -722,13 +1242,14 @@ class TaskServiceTest {
                 .assignee(updateTask.assignee())
                 .status(Status.DELETED)
                 .build();
+        Mockito.when(taskRepository.update(updateTask, StatusTransition.allowedFrom(updateTask.status()))).thenReturn(Optional.empty());
         Mockito.when(taskRepository.getById(task.id())).thenReturn(task);
-        final BadRequestException exception = Assertions.assertThrows(
-                BadRequestException.class,
+        final ConflictException exception = Assertions.assertThrows(
+                ConflictException.class,
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Переход статуса из %s в %s невозможен", task.status(), updateTask.status()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(outboxRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -744,7 +1265,7 @@ class TaskServiceTest {
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Роль пользователя id = %d, выполняющего редактирование, не соответствует роли %s", editor, UserRole.MANAGER), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -758,7 +1279,7 @@ class TaskServiceTest {
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals("Не указан id пользователя, который редактирует задачу", exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -773,7 +1294,7 @@ class TaskServiceTest {
                 () -> taskService.update(updateTask)
         );
         Assertions.assertEquals(String.format("Пользователь с id = %d, выполняющий редактирование, не найден", updateTask.editor()), exception.getMessage());
-        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.never()).update(Mockito.any(), Mockito.any());
     }
 
     private TaskRequest getValidTaskRequest() {
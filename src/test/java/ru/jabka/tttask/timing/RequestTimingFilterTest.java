@@ -0,0 +1,44 @@
+package ru.jabka.tttask.timing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.jabka.tttask.configuration.RequestTimingProperties;
+
+import java.util.concurrent.TimeUnit;
+
+class RequestTimingFilterTest {
+
+    private final RequestTimingFilter filter = new RequestTimingFilter(new RequestTimingProperties());
+
+    @Test
+    void doFilter_headerForResponseWithoutBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/task");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTimings timings = RequestTimings.current();
+            timings.exit(RequestTimings.Stage.DB, timings.enter(), TimeUnit.MILLISECONDS.toNanos(3));
+            ((MockHttpServletResponse) res).setStatus(304);
+        });
+        Assertions.assertTrue(response.getHeader(RequestTimingFilter.HEADER).startsWith("db;dur=3.0;desc=\"1\", total;dur="));
+        Assertions.assertNull(RequestTimings.current());
+    }
+
+    @Test
+    void doFilter_headerWrittenByAdviceKept() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/task");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> ((MockHttpServletResponse) res).setHeader(RequestTimingFilter.HEADER, "db;dur=1.0"));
+        Assertions.assertEquals("db;dur=1.0", response.getHeader(RequestTimingFilter.HEADER));
+    }
+
+    @Test
+    void doFilter_contextClearedOnError() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/task/1");
+        Assertions.assertThrows(IllegalStateException.class, () -> filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            throw new IllegalStateException("failure");
+        }));
+        Assertions.assertNull(RequestTimings.current());
+    }
+}
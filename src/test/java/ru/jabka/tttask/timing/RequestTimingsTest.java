@@ -0,0 +1,46 @@
+package ru.jabka.tttask.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class RequestTimingsTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestTimings.clear();
+    }
+
+    @Test
+    void serverTiming_onlyUsedStagesWithCalls() {
+        RequestTimings timings = RequestTimings.start();
+        record(timings, RequestTimings.Stage.DB, 2);
+        record(timings, RequestTimings.Stage.DB, 3);
+        record(timings, RequestTimings.Stage.USER, 10);
+        String header = timings.serverTiming();
+        Assertions.assertTrue(header.startsWith("user;dur=10.0;desc=\"1\", db;dur=5.0;desc=\"2\", total;dur="), header);
+        Assertions.assertFalse(header.contains("queue"));
+        Assertions.assertSame(timings, RequestTimings.current());
+    }
+
+    @Test
+    void exit_nestedCallCountedOnce() {
+        RequestTimings timings = RequestTimings.start();
+        boolean outer = timings.enter();
+        boolean inner = timings.enter();
+        timings.exit(RequestTimings.Stage.DB, inner, TimeUnit.MILLISECONDS.toNanos(1));
+        timings.exit(RequestTimings.Stage.USER, outer, TimeUnit.MILLISECONDS.toNanos(4));
+        Assertions.assertTrue(timings.logLine().contains("user_ms=4.0 user_calls=1 db_ms=0.0 db_calls=0"), timings.logLine());
+    }
+
+    @Test
+    void current_nullOutsideRequest() {
+        Assertions.assertNull(RequestTimings.current());
+    }
+
+    private static void record(final RequestTimings timings, final RequestTimings.Stage stage, final long millis) {
+        timings.exit(stage, timings.enter(), TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}